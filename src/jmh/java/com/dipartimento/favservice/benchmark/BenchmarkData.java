@@ -0,0 +1,43 @@
+package com.dipartimento.favservice.benchmark;
+
+import com.dipartimento.favservice.domain.FavoriteList;
+import com.dipartimento.favservice.dto.EventResponseDTO;
+import com.dipartimento.favservice.dto.EventStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.LongStream;
+
+// Dati di esempio comuni ai benchmark, con campi valorizzati come nelle risposte reali di eventService
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static List<EventResponseDTO> events(int count) {
+        LocalDateTime start = LocalDateTime.of(2025, 6, 1, 21, 0);
+        List<EventResponseDTO> events = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            events.add(new EventResponseDTO(id, "Concerto " + id,
+                    "Serata di musica dal vivo, apertura porte alle 20:00. Evento numero " + id,
+                    start.plusDays(id), start.plusDays(id).plusHours(3), "Arena di Verona",
+                    1_000 + id % 50, 25.0 + id % 10, 500, EventStatus.ACTIVE,
+                    start.minusMonths(2), 1L, start.minusMonths(1), 1L));
+        }
+        return events;
+    }
+
+    static FavoriteList list(FavoriteList.Visibility visibility, long ownerId, int events, int sharedWith) {
+        FavoriteList list = new FavoriteList();
+        list.setId(UUID.randomUUID());
+        list.setName("Preferiti");
+        list.setOwnerId(ownerId);
+        list.setVisibility(visibility);
+        list.setCapabilityToken(UUID.randomUUID().toString());
+        list.setEventIds(LongStream.rangeClosed(1, events).boxed().toList());
+        list.setSharedWith(LongStream.rangeClosed(ownerId + 1, ownerId + sharedWith).boxed().toList());
+        return list;
+    }
+}
@@ -0,0 +1,44 @@
+package com.dipartimento.favservice.benchmark;
+
+import com.dipartimento.favservice.dto.EventDTO;
+import com.dipartimento.favservice.dto.EventMapper;
+import com.dipartimento.favservice.dto.EventResponseDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Copia EventResponseDTO -> EventDTO fatta per ogni evento delle risposte with-events / details
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventMappingBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int events;
+
+    private List<EventResponseDTO> responses;
+
+    @Setup
+    public void setUp() {
+        responses = BenchmarkData.events(events);
+    }
+
+    @Benchmark
+    public List<EventDTO> toEventDTOs() {
+        return EventMapper.toEventDTOs(responses);
+    }
+}
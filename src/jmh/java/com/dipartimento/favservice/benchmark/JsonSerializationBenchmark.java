@@ -0,0 +1,52 @@
+package com.dipartimento.favservice.benchmark;
+
+import com.dipartimento.favservice.domain.FavoriteList;
+import com.dipartimento.favservice.dto.EventMapper;
+import com.dipartimento.favservice.dto.FavoriteListWithEventDetailsDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+// Serializzazione di una lista con i dettagli degli eventi (/lists/shared-with-me/with-events, /public/{token}/with-events)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int events;
+
+    // stessa configurazione dell'ObjectMapper di Spring Boot (moduli java.time, date ISO)
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private FavoriteListWithEventDetailsDTO dto;
+
+    @Setup
+    public void setUp() {
+        dto = new FavoriteListWithEventDetailsDTO();
+        dto.setFavoriteList(BenchmarkData.list(FavoriteList.Visibility.PUBLIC, 1L, events, 5));
+        dto.setEvents(EventMapper.toEventDTOs(BenchmarkData.events(events)));
+        dto.setOwnerUsername("mario");
+    }
+
+    @Benchmark
+    public byte[] writeListWithEvents() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(dto);
+    }
+}
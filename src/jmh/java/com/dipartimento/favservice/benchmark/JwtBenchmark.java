@@ -0,0 +1,60 @@
+package com.dipartimento.favservice.benchmark;
+
+import com.dipartimento.favservice.security.JwtPrincipal;
+import com.dipartimento.favservice.util.JwtUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// Costo per richiesta dell'autenticazione JWT (JwtAuthenticationFilter -> jwtUtil.authenticate)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+    private final JwtUtil jwtUtil = new JwtUtil(10_000, Duration.ofMinutes(5));
+
+    private String bearer;
+    private String forged;
+
+    @Setup
+    public void setUp() {
+        bearer = "Bearer " + JwtUtil.generateToken(42L, "mario", "USER");
+        jwtUtil.parse(bearer);
+
+        // firma alterata: mai in cache, ogni chiamata rifà parsing e verifica HMAC
+        String token = JwtUtil.generateToken(43L, "luigi", "USER");
+        int signature = token.lastIndexOf('.') + 5;
+        char replacement = token.charAt(signature) == 'A' ? 'B' : 'A';
+        forged = token.substring(0, signature) + replacement + token.substring(signature + 1);
+    }
+
+    // token già verificato: SHA-256 del token e lookup nella cache dei token verificati
+    @Benchmark
+    public JwtPrincipal parseVerifiedToken() {
+        return jwtUtil.parse(bearer);
+    }
+
+    @Benchmark
+    public JwtPrincipal authenticateForgedToken() {
+        return jwtUtil.authenticate(forged);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return JwtUtil.generateToken(42L, "mario", "USER");
+    }
+}
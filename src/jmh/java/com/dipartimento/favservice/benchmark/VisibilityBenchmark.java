@@ -0,0 +1,66 @@
+package com.dipartimento.favservice.benchmark;
+
+import com.dipartimento.favservice.domain.FavoriteList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Filtro di visibilità di FavoriteListService.getById (FavoriteList.isVisibleTo), al variare di sharedWith
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VisibilityBenchmark {
+
+    private static final long OWNER = 1L;
+
+    @Param({"1", "100", "10000"})
+    private int sharedWith;
+
+    private FavoriteList privateList;
+    private FavoriteList sharedList;
+    private FavoriteList publicList;
+    private Long lastSharedUser;
+    private Long stranger;
+
+    @Setup
+    public void setUp() {
+        privateList = BenchmarkData.list(FavoriteList.Visibility.PRIVATE, OWNER, 10, 0);
+        sharedList = BenchmarkData.list(FavoriteList.Visibility.SHARED, OWNER, 10, sharedWith);
+        publicList = BenchmarkData.list(FavoriteList.Visibility.PUBLIC, OWNER, 10, 0);
+        lastSharedUser = OWNER + sharedWith;
+        stranger = OWNER + sharedWith + 1;
+    }
+
+    @Benchmark
+    public boolean privateListOwner() {
+        return privateList.isVisibleTo(OWNER);
+    }
+
+    @Benchmark
+    public boolean sharedListMember() {
+        return sharedList.isVisibleTo(lastSharedUser);
+    }
+
+    @Benchmark
+    public boolean sharedListStranger() {
+        return sharedList.isVisibleTo(stranger);
+    }
+
+    @Benchmark
+    public boolean publicListStranger() {
+        return publicList.isVisibleTo(stranger);
+    }
+}
@@ -0,0 +1,103 @@
+package com.dipartimento.favservice.config;
+
+import io.micrometer.context.ContextSnapshot;
+import io.micrometer.context.ContextSnapshotFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+// Esegue chiamate bloccanti (userService / eventService) per più chiavi.
+// Con spring.threads.virtual.enabled=true ogni chiave gira su un virtual thread e il parallelismo
+// è limitato da un semaforo per invocazione invece che dalla dimensione di un pool; altrimenti le chiamate restano in serie.
+// Il semaforo non è condiviso: un fan-out grande non lascia senza permessi gli altri. Il tetto complessivo
+// verso una dipendenza è il suo bulkhead (services.*.bulkhead.max-concurrent-calls).
+@Component
+public class BlockingFanOut {
+
+    private final boolean virtualThreads;
+    private final int maxConcurrency;
+    private final ContextSnapshotFactory snapshots = ContextSnapshotFactory.builder().build();
+
+    public BlockingFanOut(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                          @Value("${favorites.fan-out.max-concurrency:32}") int maxConcurrency) {
+        this.virtualThreads = virtualThreads;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public <K, V> Map<K, V> mapAll(Collection<K> keys, Function<K, V> task) {
+        return mapAll(keys, maxConcurrency, task);
+    }
+
+    // Risultati nell'ordine delle chiavi (senza duplicati). Al primo errore i task ancora
+    // in corso vengono interrotti e l'eccezione viene rilanciata al chiamante.
+    // maxConcurrency: chiamate in parallelo per questa invocazione (es. services.user.exists-concurrency)
+    public <K, V> Map<K, V> mapAll(Collection<K> keys, int maxConcurrency, Function<K, V> task) {
+        LinkedHashSet<K> distinctKeys = new LinkedHashSet<>(keys);
+        Map<K, V> results = new LinkedHashMap<>();
+
+        if (!virtualThreads || distinctKeys.size() <= 1) {
+            for (K key : distinctKeys) {
+                results.put(key, task.apply(key));
+            }
+            return results;
+        }
+
+        // lo span corrente (e gli altri ThreadLocal registrati) passa ai virtual thread:
+        // le chiamate a userService / eventService restano figlie della richiesta
+        ContextSnapshot snapshot = snapshots.captureAll();
+        Semaphore permits = new Semaphore(maxConcurrency);
+        Map<K, V> completed = new LinkedHashMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            ExecutorCompletionService<Map.Entry<K, V>> completion = new ExecutorCompletionService<>(executor);
+            for (K key : distinctKeys) {
+                completion.submit(snapshot.wrap(() -> {
+                    permits.acquire();
+                    try {
+                        return new AbstractMap.SimpleEntry<>(key, task.apply(key));
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+
+            try {
+                for (int i = 0; i < distinctKeys.size(); i++) {
+                    Map.Entry<K, V> entry = completion.take().get();
+                    completed.put(entry.getKey(), entry.getValue());
+                }
+            } catch (ExecutionException e) {
+                executor.shutdownNow();
+                if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+                throw new IllegalStateException(e.getCause());
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Fan-out interrotto", e);
+            }
+        }
+
+        for (K key : distinctKeys) {
+            results.put(key, completed.get(key));
+        }
+        return results;
+    }
+}
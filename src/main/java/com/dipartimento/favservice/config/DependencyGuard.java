@@ -0,0 +1,35 @@
+package com.dipartimento.favservice.config;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+// Protezione delle chiamate verso un servizio esterno: timeout complessivo, limite di chiamate
+// concorrenti (bulkhead) e circuit breaker. Con il circuito aperto la chiamata fallisce subito
+// con CallNotPermittedException invece di occupare un thread in attesa.
+public class DependencyGuard {
+
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final Duration callTimeout;
+
+    public DependencyGuard(CircuitBreaker circuitBreaker, Bulkhead bulkhead, Duration callTimeout) {
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+        this.callTimeout = callTimeout;
+    }
+
+    public <T> Mono<T> protect(Mono<T> call) {
+        return call.timeout(callTimeout)
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker));
+    }
+
+    public CircuitBreaker.State state() {
+        return circuitBreaker.getState();
+    }
+}
@@ -0,0 +1,32 @@
+package com.dipartimento.favservice.config;
+
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+// Impostazioni di rete e di resilienza di un servizio esterno, lette da services.<nome>.*
+record DependencySettings(Duration connectTimeout,
+                          Duration responseTimeout,
+                          int maxConnections,
+                          Duration pendingAcquireTimeout,
+                          Duration callTimeout,
+                          int maxConcurrentCalls,
+                          float failureRateThreshold,
+                          Duration slowCallDuration,
+                          int slidingWindowSize,
+                          Duration waitInOpenState) {
+
+    static DependencySettings from(Environment env, String prefix) {
+        return new DependencySettings(
+                env.getProperty(prefix + ".connect-timeout", Duration.class, Duration.ofSeconds(1)),
+                env.getProperty(prefix + ".response-timeout", Duration.class, Duration.ofSeconds(2)),
+                env.getProperty(prefix + ".max-connections", Integer.class, 50),
+                env.getProperty(prefix + ".pending-acquire-timeout", Duration.class, Duration.ofMillis(500)),
+                env.getProperty(prefix + ".call-timeout", Duration.class, Duration.ofSeconds(3)),
+                env.getProperty(prefix + ".bulkhead.max-concurrent-calls", Integer.class, 50),
+                env.getProperty(prefix + ".circuit-breaker.failure-rate-threshold", Float.class, 50f),
+                env.getProperty(prefix + ".circuit-breaker.slow-call-duration", Duration.class, Duration.ofSeconds(1)),
+                env.getProperty(prefix + ".circuit-breaker.sliding-window-size", Integer.class, 20),
+                env.getProperty(prefix + ".circuit-breaker.wait-in-open-state", Duration.class, Duration.ofSeconds(10)));
+    }
+}
@@ -3,44 +3,187 @@ package com.dipartimento.favservice.config;
 
 
 
-import com.dipartimento.favservice.dto.EventDTO;
 import com.dipartimento.favservice.dto.EventResponseDTO;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 @Component
 public class EventClient {
 
+    private static final Logger log = LoggerFactory.getLogger(EventClient.class);
+
     private final WebClient eventClient;
 
-    public EventClient(@Qualifier("eventWebClient") WebClient eventClient) {
+    // I metadati degli eventi cambiano raramente: cache per id con scadenza per voce.
+    // Asincrona: le richieste concorrenti per lo stesso id condividono la chiamata in corso
+    // e nessun thread resta bloccato dentro il lock di calcolo di Caffeine.
+    private final AsyncCache<Long, EventResponseDTO> events;
+
+    // Ultimi dati noti per id (scadenza più lunga), serviti quando eventService non è disponibile
+    private final Cache<Long, EventResponseDTO> staleEvents;
+
+    private final DependencyGuard guard;
+
+    // Id per lookup: richiesti dal chiamante e effettivamente chiesti a eventService (non in cache)
+    private final DistributionSummary requestedIds;
+    private final DistributionSummary fetchedIds;
+
+    public EventClient(@Qualifier("eventWebClient") WebClient eventClient,
+                       @Value("${services.event.cache.max-size:5000}") long cacheMaxSize,
+                       @Value("${services.event.cache.ttl:5m}") Duration cacheTtl,
+                       @Value("${services.event.cache.stale-ttl:1h}") Duration staleTtl,
+                       @Qualifier("eventServiceGuard") DependencyGuard guard,
+                       MeterRegistry meterRegistry) {
         this.eventClient = eventClient;
+        this.guard = guard;
+        this.events = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(cacheTtl)
+                .recordStats()
+                .buildAsync();
+        this.staleEvents = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(staleTtl)
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, events, "events");
+        this.requestedIds = eventIdsSummary(meterRegistry, "requested");
+        this.fetchedIds = eventIdsSummary(meterRegistry, "fetched");
     }
 
 
+    // 404 (evento inesistente) viene propagato; per gli altri errori l'ultimo dato noto, se c'è.
+    // Le chiamate fallite non restano in cache.
     public EventResponseDTO getEventById(Long eventId) {
-        return eventClient.get()
-                .uri("/events/public/{id}", eventId)
-                .retrieve()
-                .bodyToMono(EventResponseDTO.class)
+        return Mono.defer(() -> {
+                    CompletableFuture<EventResponseDTO> lookup =
+                            events.get(eventId, (id, executor) -> fetchEvent(id).contextCapture().toFuture());
+                    // suppressCancel: l'interruzione del chiamante non deve cancellare la chiamata condivisa in cache.
+                    // La voce fallita viene tolta subito, non solo quando Caffeine esegue la propria callback.
+                    return Mono.fromFuture(lookup, true)
+                            .doOnError(e -> events.asMap().remove(eventId, lookup));
+                })
+                .onErrorResume(e -> !(e instanceof WebClientResponseException.NotFound), e -> {
+                    EventResponseDTO stale = staleEvents.getIfPresent(eventId);
+                    if (stale == null) return Mono.error(e);
+                    log.warn("eventService non disponibile ({}), evento {} dall'ultimo valore noto", e.toString(), eventId);
+                    return Mono.just(stale);
+                })
                 .block();
     }
 
-    public List<EventResponseDTO> getEventsByIds(List<Long> eventIds, String authHeader) {
-        return eventClient.post()
-                .uri("/events/public/byIds")
-                .header("Authorization", authHeader)
-                .bodyValue(eventIds)
-                .retrieve()
-                .bodyToFlux(EventResponseDTO.class)
-                .collectList()
-                .block();
+    private Mono<EventResponseDTO> fetchEvent(Long eventId) {
+        return guard.protect(eventClient.get()
+                        .uri("/events/public/{id}", eventId)
+                        .retrieve()
+                        .bodyToMono(EventResponseDTO.class))
+                .doOnNext(event -> staleEvents.put(eventId, event));
     }
 
+    public List<EventResponseDTO> getEventsByIds(Collection<Long> eventIds, String authHeader) {
+        return getEventsByIdsAsync(eventIds, authHeader).block();
+    }
 
+    // Solo gli id non presenti in cache vengono richiesti a eventService
+    public Mono<List<EventResponseDTO>> getEventsByIdsAsync(Collection<Long> eventIds, String authHeader) {
+        LinkedHashSet<Long> distinctIds = new LinkedHashSet<>(eventIds);
+        // solo le voci già caricate: quelle ancora in corso vengono richieste nel batch
+        Map<Long, EventResponseDTO> cached = events.synchronous().getAllPresent(distinctIds);
 
-}
+        List<Long> missing = distinctIds.stream()
+                .filter(id -> !cached.containsKey(id))
+                .toList();
+
+        log.debug("Eventi da cache: {}, richiesti a eventService: {}", cached.size(), missing.size());
+        requestedIds.record(distinctIds.size());
+        fetchedIds.record(missing.size());
+
+        Mono<List<EventResponseDTO>> fetched = missing.isEmpty() ? Mono.just(List.of()) : guard.protect(eventClient.post()
+                        .uri("/events/public/byIds")
+                        .headers(headers -> {
+                            if (authHeader != null) headers.set("Authorization", authHeader);
+                        })
+                        .bodyValue(missing)
+                        .retrieve()
+                        .bodyToFlux(EventResponseDTO.class)
+                        .collectList())
+                .doOnNext(fetchedEvents -> fetchedEvents.forEach(event -> {
+                    events.synchronous().put(event.getId(), event);
+                    staleEvents.put(event.getId(), event);
+                }))
+                .onErrorResume(e -> staleOrError(missing, e));
+
+        return fetched.map(fetchedEvents -> {
+            Map<Long, EventResponseDTO> found = new HashMap<>(cached);
+            for (EventResponseDTO event : fetchedEvents) {
+                found.put(event.getId(), event);
+            }
+
+            List<EventResponseDTO> result = new ArrayList<>(found.size());
+            for (Long id : distinctIds) {
+                EventResponseDTO event = found.get(id);
+                if (event != null) result.add(event);
+            }
+            return result;
+        });
+    }
+
+
+    // Con eventService non disponibile: ultimi dati noti solo se coprono tutti gli id mancanti
+    private Mono<List<EventResponseDTO>> staleOrError(List<Long> missing, Throwable error) {
+        Map<Long, EventResponseDTO> stale = staleEvents.getAllPresent(missing);
+        if (stale.size() < missing.size()) {
+            return Mono.error(error);
+        }
+        log.warn("eventService non disponibile ({}), {} eventi dall'ultimo valore noto", error.toString(), stale.size());
+        return Mono.just(new ArrayList<>(stale.values()));
+    }
 
+    private static DistributionSummary eventIdsSummary(MeterRegistry meterRegistry, String stage) {
+        return DistributionSummary.builder("favorites.event.ids")
+                .baseUnit("ids")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    // Invalidazione (es. cambio di stato di un evento notificato da eventService)
+    public void evict(Long eventId) {
+        events.synchronous().invalidate(eventId);
+        staleEvents.invalidate(eventId);
+    }
+
+    public void evictAll(Collection<Long> eventIds) {
+        List<Long> ids = eventIds.stream().filter(Objects::nonNull).toList();
+        events.synchronous().invalidateAll(ids);
+        staleEvents.invalidateAll(ids);
+    }
+
+    public void evictAll() {
+        events.synchronous().invalidateAll();
+        staleEvents.invalidateAll();
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.dipartimento.favservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+@Configuration
+public class ReactiveConfig {
+
+    // Scheduler dedicato alle chiamate JPA (bloccanti) delle API reattive /api/v2.
+    // Il numero di thread non dovrebbe superare il pool di connessioni del datasource.
+    @Bean(name = "jpaScheduler", destroyMethod = "dispose")
+    public Scheduler jpaScheduler(@Value("${favorites.reactive.jpa-threads:10}") int threads,
+                                  @Value("${favorites.reactive.jpa-queue-size:1000}") int queueSize) {
+        return Schedulers.newBoundedElastic(threads, queueSize, "jpa");
+    }
+}
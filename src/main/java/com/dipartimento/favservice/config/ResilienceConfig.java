@@ -0,0 +1,75 @@
+package com.dipartimento.favservice.config;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+@Configuration
+public class ResilienceConfig {
+
+    // Contatore delle transizioni di stato (tag name, from, to), oltre al gauge resilience4j.circuitbreaker.state
+    static final String STATE_TRANSITIONS_METRIC = "resilience4j.circuitbreaker.state.transitions";
+
+    @Bean
+    public CircuitBreakerRegistry circuitBreakerRegistry(MeterRegistry meterRegistry) {
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.ofDefaults();
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        registry.getEventPublisher().onEntryAdded(added -> added.getAddedEntry().getEventPublisher()
+                .onStateTransition(event -> meterRegistry.counter(STATE_TRANSITIONS_METRIC,
+                                "name", event.getCircuitBreakerName(),
+                                "from", event.getStateTransition().getFromState().name(),
+                                "to", event.getStateTransition().getToState().name())
+                        .increment()));
+        return registry;
+    }
+
+    @Bean
+    public BulkheadRegistry bulkheadRegistry(MeterRegistry meterRegistry) {
+        BulkheadRegistry registry = BulkheadRegistry.ofDefaults();
+        TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
+
+    @Bean(name = "userServiceGuard")
+    public DependencyGuard userServiceGuard(CircuitBreakerRegistry circuitBreakers, BulkheadRegistry bulkheads, Environment env) {
+        return guard("userService", DependencySettings.from(env, "services.user"), circuitBreakers, bulkheads);
+    }
+
+    @Bean(name = "eventServiceGuard")
+    public DependencyGuard eventServiceGuard(CircuitBreakerRegistry circuitBreakers, BulkheadRegistry bulkheads, Environment env) {
+        return guard("eventService", DependencySettings.from(env, "services.event"), circuitBreakers, bulkheads);
+    }
+
+    static DependencyGuard guard(String name, DependencySettings settings,
+                                 CircuitBreakerRegistry circuitBreakers, BulkheadRegistry bulkheads) {
+        CircuitBreaker circuitBreaker = circuitBreakers.circuitBreaker(name, CircuitBreakerConfig.custom()
+                .failureRateThreshold(settings.failureRateThreshold())
+                .slowCallRateThreshold(settings.failureRateThreshold())
+                .slowCallDurationThreshold(settings.slowCallDuration())
+                .slidingWindowSize(settings.slidingWindowSize())
+                .minimumNumberOfCalls(Math.min(10, settings.slidingWindowSize()))
+                .waitDurationInOpenState(settings.waitInOpenState())
+                .permittedNumberOfCallsInHalfOpenState(3)
+                // bulkhead pieno e 4xx (es. evento inesistente) non indicano un servizio guasto
+                .recordException(e -> !(e instanceof BulkheadFullException)
+                        && !(e instanceof WebClientResponseException response && response.getStatusCode().is4xxClientError()))
+                .build());
+
+        Bulkhead bulkhead = bulkheads.bulkhead(name, BulkheadConfig.custom()
+                .maxConcurrentCalls(settings.maxConcurrentCalls())
+                .build());
+
+        return new DependencyGuard(circuitBreaker, bulkhead, settings.callTimeout());
+    }
+}
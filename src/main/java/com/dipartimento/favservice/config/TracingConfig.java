@@ -0,0 +1,18 @@
+package com.dipartimento.favservice.config;
+
+import io.opentelemetry.exporter.logging.LoggingSpanExporter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Export degli span: OTLP (collector / Jaeger / Tempo) se management.otlp.tracing.endpoint è impostato,
+// oppure sul log applicativo con favorites.tracing.exporter=logging (sviluppo locale, test)
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "favorites.tracing.exporter", havingValue = "logging")
+    public LoggingSpanExporter loggingSpanExporter() {
+        return LoggingSpanExporter.create();
+    }
+}
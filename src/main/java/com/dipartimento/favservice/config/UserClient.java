@@ -0,0 +1,194 @@
+package com.dipartimento.favservice.config;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+@Component
+public class UserClient {
+
+    public static final String UNKNOWN_USER = "Unknown";
+
+    private static final Logger log = LoggerFactory.getLogger(UserClient.class);
+
+    private final WebClient userClient;
+    private final int existsConcurrency;
+    private final BlockingFanOut fanOut;
+    private final AsyncLoadingCache<Long, String> userNames;
+    private final DependencyGuard guard;
+
+    // Ultimo nome noto per id, servito quando userService è lento / giù o il circuito è aperto
+    private final Cache<Long, String> lastKnownNames;
+
+    public UserClient(@Qualifier("userWebClient") WebClient userClient,
+                      @Value("${services.user.exists-concurrency:16}") int existsConcurrency,
+                      @Value("${services.user.name-cache.max-size:10000}") long nameCacheMaxSize,
+                      @Value("${services.user.name-cache.ttl:10m}") Duration nameTtl,
+                      @Value("${services.user.name-cache.negative-ttl:30s}") Duration negativeTtl,
+                      @Value("${services.user.name-cache.stale-ttl:24h}") Duration staleTtl,
+                      BlockingFanOut fanOut,
+                      @Qualifier("userServiceGuard") DependencyGuard guard,
+                      MeterRegistry meterRegistry) {
+        this.userClient = userClient;
+        this.existsConcurrency = existsConcurrency;
+        this.fanOut = fanOut;
+        this.guard = guard;
+        this.lastKnownNames = Caffeine.newBuilder()
+                .maximumSize(nameCacheMaxSize)
+                .expireAfterWrite(staleTtl)
+                .build();
+
+        // Le richieste concorrenti per lo stesso id condividono la stessa chiamata in corso
+        this.userNames = Caffeine.newBuilder()
+                .maximumSize(nameCacheMaxSize)
+                .expireAfter(new Expiry<Long, String>() {
+                    @Override
+                    public long expireAfterCreate(Long userId, String name, long currentTime) {
+                        return (UNKNOWN_USER.equals(name) ? negativeTtl : nameTtl).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Long userId, String name, long currentTime, long currentDuration) {
+                        return expireAfterCreate(userId, name, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Long userId, String name, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                // contextCapture: la chiamata parte come figlia dello span del chiamante (toFuture non lo cattura da sé)
+                .buildAsync((userId, executor) -> fetchUserName(userId).contextCapture().toFuture());
+
+        CaffeineCacheMetrics.monitor(meterRegistry, userNames, "userNames");
+    }
+
+
+    // Nessun dato "stale" per le verifiche di esistenza: con userService non disponibile fallisce subito
+    public Mono<Boolean> exists(Long userId) {
+        return guard.protect(userClient.get()
+                        .uri("/api/users/{id}/exists", userId)
+                        .retrieve()
+                        .bodyToMono(Boolean.class))
+                .defaultIfEmpty(false);
+    }
+
+    // Verifica in parallelo (max existsConcurrency chiamate) che tutti gli utenti esistano.
+    // Gli ID duplicati vengono controllati una sola volta; al primo utente mancante
+    // le chiamate ancora in corso vengono cancellate e viene lanciata IllegalArgumentException.
+    public void validateUsersExist(Collection<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) return;
+
+        LinkedHashSet<Long> distinctIds = new LinkedHashSet<>(userIds);
+        log.info("Verifica esistenza per {} utenti", distinctIds.size());
+
+        if (fanOut.isVirtualThreads()) {
+            fanOut.mapAll(distinctIds, existsConcurrency, userId -> {
+                if (!Boolean.TRUE.equals(exists(userId).block())) {
+                    throw new IllegalArgumentException("UserId " + userId + " does not exist");
+                }
+                return userId;
+            });
+            return;
+        }
+
+        Flux.fromIterable(distinctIds)
+                .flatMap(userId -> exists(userId)
+                                .flatMap(exists -> exists
+                                        ? Mono.just(userId)
+                                        : Mono.error(new IllegalArgumentException("UserId " + userId + " does not exist"))),
+                        existsConcurrency)
+                .then()
+                .block();
+    }
+
+    // Nome utente dalla cache; "Unknown" se l'utente non esiste. Se userService non risponde
+    // (errore, timeout, circuito aperto) l'ultimo nome noto, altrimenti "Unknown".
+    // Gli errori non restano in cache: la richiesta successiva riprova (o fallisce subito col circuito aperto).
+    public Mono<String> getUserName(Long userId) {
+        if (userId == null) return Mono.just(UNKNOWN_USER);
+        return findUserName(userId).onErrorReturn(UNKNOWN_USER);
+    }
+
+    // Come getUserName, ma senza ultimo nome noto l'errore di userService arriva al chiamante
+    // (es. aggregazioni che riportano la parte in "missing" invece di mostrare "Unknown")
+    public Mono<String> findUserName(Long userId) {
+        // suppressCancel: un timeout del chiamante non deve cancellare la chiamata condivisa in cache
+        return Mono.fromFuture(() -> userNames.get(userId), true)
+                .onErrorResume(e -> {
+                    String stale = lastKnownNames.getIfPresent(userId);
+                    log.warn("userService non disponibile per id {} ({}), nome {}", userId, e.toString(),
+                            stale != null ? "dall'ultimo valore noto" : "non disponibile");
+                    return stale != null ? Mono.just(stale) : Mono.error(e);
+                });
+    }
+
+    // Nomi di più utenti (owner / sharedBy di più liste) risolti in parallelo, id -> nome.
+    // Con i virtual thread una chiamata bloccante per id; altrimenti le chiamate WebClient partono insieme
+    // (max favorites.fan-out.max-concurrency) e si blocca una volta sola sul risultato.
+    public Map<Long, String> getUserNames(Collection<Long> userIds) {
+        List<Long> ids = userIds.stream().filter(Objects::nonNull).distinct().toList();
+
+        if (fanOut.isVirtualThreads()) {
+            return fanOut.mapAll(ids, userId -> getUserName(userId).block());
+        }
+
+        Map<Long, String> fetched = Flux.fromIterable(ids)
+                .flatMap(userId -> getUserName(userId).map(name -> Map.entry(userId, name)), fanOut.getMaxConcurrency())
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .block();
+
+        Map<Long, String> names = new LinkedHashMap<>();
+        ids.forEach(userId -> names.put(userId, fetched.get(userId)));
+        return names;
+    }
+
+    public CacheStats userNameCacheStats() {
+        return userNames.synchronous().stats();
+    }
+
+    private Mono<String> fetchUserName(Long userId) {
+        log.info("Calling UserService for id {}", userId);
+
+        return guard.protect(userClient.get()
+                        .uri("/api/users/{id}/username", userId)
+                        .exchangeToMono(clientResponse -> {
+                            log.info("Status code: {}", clientResponse.statusCode());
+                            // 5xx: errore del servizio, conta per il circuit breaker
+                            if (clientResponse.statusCode().is5xxServerError()) {
+                                return clientResponse.createError();
+                            }
+                            if (!clientResponse.statusCode().is2xxSuccessful()) {
+                                return clientResponse.releaseBody().then(Mono.<String>empty());
+                            }
+                            return clientResponse.bodyToMono(String.class);
+                        }))
+                .filter(name -> !name.isEmpty())
+                .doOnNext(name -> lastKnownNames.put(userId, name))
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    log.warn("Nome utente non trovato per id: {}", userId);
+                    return UNKNOWN_USER;
+                }));
+    }
+}
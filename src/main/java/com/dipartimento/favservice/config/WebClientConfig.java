@@ -1,25 +1,46 @@
 package com.dipartimento.favservice.config;
 
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 @Configuration
 public class WebClientConfig {
 
 
-    @Bean(name = "userClient")
-    public WebClient userClient() {
-        return WebClient.builder()
-                .baseUrl("http://192.168.0.107:8080")  // indirizzo IP reale della tua macchina + porta userService
-                .build();
+    // Il WebClient.Builder di Spring Boot registra le metriche http.client.requests (uri template, status, client.name)
+    @Bean(name = "userWebClient")
+    public WebClient userClient(WebClient.Builder builder, @Value("${services.user.base-url}") String baseUrl, Environment env) {
+        return build(builder, "userService", baseUrl, DependencySettings.from(env, "services.user")); // indirizzo userService
     }
 
 
     @Bean(name = "eventWebClient")
-    public WebClient eventClient() {
-        return WebClient.builder()
-                .baseUrl("http://localhost:8081")    // indirizzo event microservice
+    public WebClient eventClient(WebClient.Builder builder, @Value("${services.event.base-url}") String baseUrl, Environment env) {
+        return build(builder, "eventService", baseUrl, DependencySettings.from(env, "services.event")); // indirizzo event microservice
+    }
+
+    // Pool di connessioni dedicato per servizio: un servizio lento non esaurisce le connessioni dell'altro.
+    // Connect / response timeout a livello Netty, attesa massima di una connessione libera dal pool.
+    static WebClient build(WebClient.Builder builder, String name, String baseUrl, DependencySettings settings) {
+        ConnectionProvider pool = ConnectionProvider.builder(name)
+                .maxConnections(settings.maxConnections())
+                .pendingAcquireTimeout(settings.pendingAcquireTimeout())
+                .build();
+
+        HttpClient httpClient = HttpClient.create(pool)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) settings.connectTimeout().toMillis())
+                .responseTimeout(settings.responseTimeout());
+
+        return builder.clone()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
                 .build();
     }
 }
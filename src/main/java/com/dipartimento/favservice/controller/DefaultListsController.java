@@ -0,0 +1,38 @@
+package com.dipartimento.favservice.controller;
+
+import com.dipartimento.favservice.dto.UserRegisteredEvent;
+import com.dipartimento.favservice.service.DefaultListsProvisioner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+// Creazione delle liste di default: eventi di registrazione da userService (a blocchi) e backfill degli utenti esistenti
+@RestController
+@RequestMapping("/api/favorites/admin")
+public class DefaultListsController {
+
+    private static final Logger log = LoggerFactory.getLogger(DefaultListsController.class);
+
+    @Autowired
+    private DefaultListsProvisioner provisioner;
+
+    @PostMapping("/user-events/registered")
+    public ResponseEntity<?> usersRegistered(@RequestBody List<UserRegisteredEvent> events) {
+        int provisioned = provisioner.onUsersRegistered(events);
+        return ResponseEntity.ok(Map.of("received", events.size(), "provisioned", provisioned));
+    }
+
+    @PostMapping("/default-lists/backfill")
+    public ResponseEntity<?> backfill(@RequestBody List<Long> userIds) {
+        long start = System.nanoTime();
+        int provisioned = provisioner.backfill(userIds);
+        log.info("Backfill liste di default: {} utenti su {} in {} ms",
+                provisioned, userIds.size(), (System.nanoTime() - start) / 1_000_000);
+        return ResponseEntity.ok(Map.of("requested", userIds.size(), "provisioned", provisioned));
+    }
+}
@@ -0,0 +1,51 @@
+package com.dipartimento.favservice.controller;
+
+import com.dipartimento.favservice.config.EventClient;
+import com.dipartimento.favservice.service.PublicListCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+// Hook di invalidazione della cache eventi, da chiamare quando un evento cambia (es. stato CANCELLED)
+@RestController
+@RequestMapping("/api/favorites/admin/event-cache")
+public class EventCacheController {
+
+    private static final Logger log = LoggerFactory.getLogger(EventCacheController.class);
+
+    @Autowired
+    private EventClient eventClient;
+
+    // Le risposte with-events dei link pubblici contengono i dettagli degli eventi
+    @Autowired
+    private PublicListCache publicListCache;
+
+    @DeleteMapping("/{eventId}")
+    public ResponseEntity<?> evict(@PathVariable Long eventId) {
+        log.info("Invalidazione cache evento {}", eventId);
+        eventClient.evict(eventId);
+        publicListCache.invalidateAllWithEvents();
+        return ResponseEntity.ok(Map.of("message", "Event cache entry evicted"));
+    }
+
+    @PostMapping("/invalidate")
+    public ResponseEntity<?> evictAll(@RequestBody List<Long> eventIds) {
+        log.info("Invalidazione cache per {} eventi", eventIds.size());
+        eventClient.evictAll(eventIds);
+        publicListCache.invalidateAllWithEvents();
+        return ResponseEntity.ok(Map.of("message", "Event cache entries evicted"));
+    }
+
+    @DeleteMapping
+    public ResponseEntity<?> clear() {
+        log.info("Svuotamento cache eventi");
+        eventClient.evictAll();
+        publicListCache.invalidateAllWithEvents();
+        return ResponseEntity.ok(Map.of("message", "Event cache cleared"));
+    }
+}
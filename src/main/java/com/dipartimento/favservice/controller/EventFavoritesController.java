@@ -0,0 +1,44 @@
+package com.dipartimento.favservice.controller;
+
+import com.dipartimento.favservice.dto.EventFavoriteCount;
+import com.dipartimento.favservice.service.EventFavoritesIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.UUID;
+
+// "Chi ha tra i preferiti l'evento X": contatori per i badge di popolarità (eventService, anche per molti eventi
+// in una chiamata) e, solo per amministratori, le liste che contengono l'evento
+@RestController
+@RequestMapping("/api/favorites")
+public class EventFavoritesController {
+
+    @Autowired
+    private EventFavoritesIndex eventIndex;
+
+    @PostMapping("/events/counts")
+    public ResponseEntity<List<EventFavoriteCount>> getCounts(@RequestBody List<Long> eventIds) {
+        return ResponseEntity.ok(eventIndex.getCounts(eventIds));
+    }
+
+    @GetMapping("/events/{eventId}/counts")
+    public ResponseEntity<EventFavoriteCount> getCount(@PathVariable Long eventId) {
+        return ResponseEntity.ok(eventIndex.getCounts(List.of(eventId)).get(0));
+    }
+
+    @GetMapping("/admin/events/{eventId}/lists")
+    public ResponseEntity<List<UUID>> getListIds(@PathVariable Long eventId,
+                                                 @RequestParam(required = false) UUID after,
+                                                 @RequestParam(defaultValue = "50") int size) {
+        int pageSize = eventIndex.getPageSize(size);
+        List<UUID> listIds = eventIndex.getListIds(eventId, after, pageSize);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (listIds.size() == pageSize) {
+            response.header(FavoriteListController.NEXT_CURSOR_HEADER, listIds.get(listIds.size() - 1).toString());
+        }
+        return response.body(listIds);
+    }
+}
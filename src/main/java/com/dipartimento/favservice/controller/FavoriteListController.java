@@ -2,17 +2,30 @@ package com.dipartimento.favservice.controller;
 
 import com.dipartimento.favservice.domain.FavoriteList;
 import com.dipartimento.favservice.dto.*;
+import com.dipartimento.favservice.service.FavoriteListDetailsService;
 import com.dipartimento.favservice.service.FavoriteListService;
+import com.dipartimento.favservice.service.FavoritesDashboardService;
+import com.dipartimento.favservice.service.PublicListCache;
+import com.dipartimento.favservice.util.ETagUtil;
 import com.dipartimento.favservice.util.JwtUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import reactor.core.publisher.Mono;
 import com.dipartimento.favservice.service.FavoriteListService;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -22,12 +35,26 @@ public class FavoriteListController {
 
     private static final Logger log = LoggerFactory.getLogger(FavoriteListController.class);
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @Autowired
     private FavoriteListService service;
 
+    @Autowired
+    private FavoriteListDetailsService detailsService;
+
+    @Autowired
+    private FavoritesDashboardService dashboardService;
+
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${favorites.default-lists.provision-on-read:true}")
+    private boolean provisionOnRead;
+
     public FavoriteListController() {
         System.out.println("FavoriteListController loaded!");
     }
@@ -54,46 +81,66 @@ public class FavoriteListController {
     }
 
     @GetMapping("/lists")
-    public ResponseEntity<?> getMyLists(@RequestHeader("Authorization") String authHeader) {
+    public ResponseEntity<?> getMyLists(@RequestHeader("Authorization") String authHeader, WebRequest webRequest) {
         Long userId = jwtUtil.extractUserId(authHeader);
 
-        List<FavoriteList> existingLists = service.getMyLists(userId);
-
-        // SE NON HA LISTE, CREA LE 3 DI DEFAULT
-        if (existingLists.isEmpty()) {
-            service.createDefaultListsForUser(userId);
-            existingLists = service.getMyLists(userId);
-        }
+        // le liste di default vengono create alla registrazione (DefaultListsProvisioner): qui solo lettura,
+        // salvo provision-on-read attivo per gli utenti non ancora coperti dal backfill
+        List<FavoriteList> existingLists = provisionOnRead ? service.getOrCreateMyLists(userId) : service.getMyLists(userId);
 
-        return ResponseEntity.ok(existingLists);
+        return withETag(webRequest, ETagUtil.of(existingLists), existingLists);
     }
 
 
+    // Schermata principale: liste proprie, condivise con me e nomi degli owner con una sola lettura per chiave primaria
+    @GetMapping("/dashboard")
+    public ResponseEntity<?> getDashboard(@RequestHeader("Authorization") String authHeader, WebRequest webRequest) {
+        Long userId = jwtUtil.extractUserId(authHeader);
+        FavoritesDashboard dashboard = dashboardService.getDashboard(userId);
+        // i nomi non sono versionati con il documento: entrano nell'ETag separatamente
+        return withETag(webRequest, "\"d" + dashboard.getVersion() + "-"
+                + Integer.toHexString(new TreeMap<>(dashboard.getUserNames()).hashCode()) + "\"", dashboard);
+    }
+
     @GetMapping("/lists/{id}")
-    public ResponseEntity<?> getList(@RequestHeader("Authorization") String authHeader, @PathVariable UUID id) {
+    public ResponseEntity<?> getList(@RequestHeader("Authorization") String authHeader, @PathVariable UUID id,
+                                     WebRequest webRequest) {
         Long userId = jwtUtil.extractUserId(authHeader);
         return service.getById(id, userId)
-                .map(ResponseEntity::ok)
+                .map(list -> withETag(webRequest, ETagUtil.of(list), list))
                 .orElse(ResponseEntity.status(HttpStatus.FORBIDDEN).build());
     }
 
     @PostMapping("/lists/{id}/events/{eventId}")
     public ResponseEntity<EventResponseDTO> addEvent(
             @RequestHeader("Authorization") String authHeader,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @PathVariable UUID id,
             @PathVariable Long eventId) {
         Long userId = jwtUtil.extractUserId(authHeader);
-        EventResponseDTO addedEvent = service.addEvent(id, userId, eventId);
+        EventResponseDTO addedEvent = service.addEvent(id, userId, eventId, ETagUtil.versionFromIfMatch(ifMatch));
         return ResponseEntity.ok(addedEvent);
     }
 
+    // Aggiunta / rimozione in blocco con esito per ogni eventId
+    @PostMapping("/lists/{id}/events/bulk")
+    public ResponseEntity<List<FavoriteListEventsBulkResult>> updateEvents(
+            @RequestHeader("Authorization") String authHeader,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @PathVariable UUID id,
+            @RequestBody FavoriteListEventsBulkRequest request) {
+        Long userId = jwtUtil.extractUserId(authHeader);
+        return ResponseEntity.ok(service.updateEvents(id, userId, request, authHeader, ETagUtil.versionFromIfMatch(ifMatch)));
+    }
+
     @DeleteMapping("/lists/{id}/events/{eventId}")
     public ResponseEntity<String> removeEvent(
             @RequestHeader("Authorization") String authHeader,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @PathVariable UUID id,
             @PathVariable Long eventId) {
         Long userId = jwtUtil.extractUserId(authHeader);
-        service.removeEvent(id, userId, eventId);
+        service.removeEvent(id, userId, eventId, ETagUtil.versionFromIfMatch(ifMatch));
         return ResponseEntity.ok("{\"message\": \"Event removed from favorite list\"}");
     }
 
@@ -106,74 +153,68 @@ public class FavoriteListController {
         return ResponseEntity.ok().build();
     }
 
+    // Link pubblico: risposta servita dalla cache come JSON già serializzato
     @GetMapping("/public/{token}")
-    public ResponseEntity<?> getPublicList(@PathVariable String token) {
-        log.info("Received request to get public list with token: {}", token);
-
-        return service.getPublicByToken(token)
-                .map(list -> {
-                    log.info("Found favorite list: id={}, name={}", list.getId(), list.getName());
-                    return ResponseEntity.ok(list);
-                })
+    public ResponseEntity<?> getPublicList(@PathVariable String token, WebRequest webRequest) {
+        return service.getPublicListResponse(token)
+                .map(cached -> cachedJson(webRequest, cached))
                 .orElseGet(() -> {
-                    log.warn("No favorite list found for token: {}", token);
+                    log.debug("No favorite list found for token: {}", token);
                     return ResponseEntity.notFound().build();
                 });
     }
 
 
+    // Paginazione keyset: il cursore della pagina successiva è nell'header X-Next-Cursor
     @GetMapping("/lists/public")
-    public ResponseEntity<List<FavoriteList>> getAllPublicLists() {
-        List<FavoriteList> lists = service.getAllPublicLists();
-        return ResponseEntity.ok(lists);
+    public ResponseEntity<List<FavoriteList>> getAllPublicLists(
+            @RequestParam(required = false) UUID after,
+            @RequestParam(defaultValue = "50") int size) {
+        int pageSize = service.getPublicPageSize(size);
+        List<FavoriteList> lists = service.getPublicListsPage(after, pageSize);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!lists.isEmpty() && lists.size() == pageSize) {
+            response.header(NEXT_CURSOR_HEADER, lists.get(lists.size() - 1).getId().toString());
+        }
+        return response.body(lists);
     }
 
+    // Tutte le liste pubbliche in NDJSON (una lista per riga), scritte man mano che vengono lette
+    @GetMapping(value = "/lists/public", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamAllPublicLists() {
+        StreamingResponseBody body = out -> service.forEachPublicListsPage(page -> {
+            try {
+                for (FavoriteList list : page) {
+                    out.write(objectMapper.writeValueAsBytes(list));
+                    out.write('\n');
+                }
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
 
-    @GetMapping("/public/{token}/with-events")
-    public ResponseEntity<?> getPublicListWithEvents(@PathVariable String token) {
-        log.info("Ricevuta richiesta lista pubblica con eventi per token: {}", token);
-
-        Optional<FavoriteList> listOpt = service.getPublicByToken(token);
-        if (listOpt.isEmpty()) {
-            log.warn("Nessuna lista trovata per token: {}", token);
-            return ResponseEntity.notFound().build();
-        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
 
-        FavoriteList list = listOpt.get();
-        log.info("Lista trovata: id={}, name={}, eventIds={}", list.getId(), list.getName(), list.getEventIds());
 
-        List<EventResponseDTO> events;
+    @GetMapping("/public/{token}/with-events")
+    public ResponseEntity<?> getPublicListWithEvents(@PathVariable String token, WebRequest webRequest) {
         try {
-            // Passo null perché è pubblico e non hai header di auth
-            events = service.getEventsByIdsWithAuth(list.getEventIds(), null);
-            log.info("Numero eventi recuperati: {}", events.size());
+            return service.getPublicListWithEventsResponse(token)
+                    .map(cached -> cachedJson(webRequest, cached))
+                    .orElseGet(() -> {
+                        log.debug("Nessuna lista trovata per token: {}", token);
+                        return ResponseEntity.notFound().build();
+                    });
         } catch (Exception e) {
             log.error("Errore recupero eventi per lista pubblica token {}: {}", token, e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Errore nel recupero degli eventi: " + e.getMessage());
         }
-
-        List<EventDTO> eventDTOs = events.stream().map(resp -> {
-            EventDTO dto = new EventDTO();
-            dto.setId(resp.getId());
-            dto.setName(resp.getName());
-            dto.setStartDate(resp.getStartDate());
-            dto.setEndDate(resp.getEndDate());
-            dto.setLocation(resp.getLocation());
-            dto.setDescription(resp.getDescription());
-            dto.setPrice(resp.getPrice());
-            dto.setCapacity(resp.getCapacity());
-            dto.setStatus(resp.getStatus());
-            dto.setOrganizerId(resp.getOrganizerId());
-            return dto;
-        }).collect(Collectors.toList());
-
-        FavoriteListWithEventDetailsDTO dto = new FavoriteListWithEventDetailsDTO();
-        dto.setFavoriteList(list);
-        dto.setEvents(eventDTOs);
-
-        log.info("Risposta composta correttamente per token: {}", token);
-        return ResponseEntity.ok(dto);
     }
 
 
@@ -183,6 +224,7 @@ public class FavoriteListController {
     @PutMapping("/lists/{id}/shared-with")
     public ResponseEntity<?> updateSharedWith(
             @RequestHeader("Authorization") String authHeader,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @PathVariable UUID id,
             @RequestBody List<Long> sharedWith) {
         Long userId = jwtUtil.extractUserId(authHeader);
@@ -190,9 +232,11 @@ public class FavoriteListController {
         log.info("SharedWith list received: {}", sharedWith);
 
         try {
-            service.updateSharedWith(id, userId, sharedWith);
+            service.updateSharedWith(id, userId, sharedWith, ETagUtil.versionFromIfMatch(ifMatch));
             log.info("SharedWith updated successfully");
             return ResponseEntity.ok(Map.of("message", "Shared users updated"));
+        } catch (ResponseStatusException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error updating sharedWith", e);
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Unauthorized or invalid user ids");
@@ -226,15 +270,9 @@ public class FavoriteListController {
         }
 
         FavoriteList favoriteList = favoriteListOpt.get();
-        List<Long> eventIds = favoriteList.getEventIds();
-        List<EventResponseDTO> events = service.getEventsByIdsWithAuth(eventIds, authHeader);
+        FavoriteListDetails details = detailsService.getWithEventsBlocking(favoriteList, authHeader);
 
-        Map<String, Object> response = Map.of(
-                "favoriteList", favoriteList,
-                "events", events
-        );
-
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(details.toWithEvents());
     }
 
     @GetMapping("/{id}/details")
@@ -249,32 +287,11 @@ public class FavoriteListController {
         }
 
         FavoriteList favoriteList = favoriteListOpt.get();
-        List<Long> eventIds = favoriteList.getEventIds();
-        List<EventResponseDTO> responseDTOs = service.getEventsByIdsWithAuth(eventIds, authHeader);
-
-        // 👇 Conversione da EventResponseDTO a EventDTO (puoi usare un mapper dedicato)
-
-        List<EventDTO> eventDTOs = responseDTOs.stream().map(resp -> {
-            EventDTO dto = new EventDTO();
-            dto.setId(resp.getId());
-            dto.setName(resp.getName()); // ✅ invece di setTitle
-            dto.setStartDate(resp.getStartDate()); // ✅ invece di setDate
-            dto.setEndDate(resp.getEndDate());
-            dto.setLocation(resp.getLocation());
-            dto.setDescription(resp.getDescription());
-            dto.setPrice(resp.getPrice());
-            dto.setCapacity(resp.getCapacity());
-            dto.setStatus(resp.getStatus());
-            dto.setOrganizerId(resp.getOrganizerId());
-            return dto;
-        }).collect(Collectors.toList());
 
+        // owner ed eventi in parallelo; le parti non disponibili finiscono in "missing"
+        FavoriteListDetails details = detailsService.getWithEventDetailsBlocking(favoriteList, authHeader);
 
-        FavoriteListWithEventDetailsDTO dto = new FavoriteListWithEventDetailsDTO();
-        dto.setFavoriteList(favoriteList);
-        dto.setEvents(eventDTOs);
-
-        return ResponseEntity.ok(dto);
+        return ResponseEntity.ok(details.toWithEventDetails());
     }
 
     @PostMapping("/lists/events/byIds")
@@ -298,34 +315,27 @@ public class FavoriteListController {
         List<FavoriteList> sharedLists = service.getSharedWithMe(userId);
         log.info("Liste condivise trovate: {}", sharedLists.size());
 
-        List<FavoriteListWithEventDetailsDTO> result = sharedLists.stream().map(list -> {
-            log.info("Processando lista id={} name={}", list.getId(), list.getName());
-            List<EventResponseDTO> events = service.getEventsByIdsWithAuth(list.getEventIds(), authHeader);
-            log.info("Eventi trovati per lista {}: {}", list.getId(), events.size());
+        // Un'unica richiesta (a blocchi) per tutti gli eventi distinti delle liste
+        Set<Long> allEventIds = new LinkedHashSet<>();
+        sharedLists.forEach(list -> allEventIds.addAll(list.getEventIds()));
+        Map<Long, EventResponseDTO> eventsById = service.getEventsByIdsBulk(allEventIds, authHeader);
+        log.info("Eventi distinti recuperati: {} su {}", eventsById.size(), allEventIds.size());
+
+        Map<Long, String> ownerNames = service.getUserNamesByIds(
+                sharedLists.stream().map(FavoriteList::getOwnerId).toList());
 
+        List<FavoriteListWithEventDetailsDTO> result = sharedLists.stream().map(list -> {
             FavoriteListWithEventDetailsDTO dto = new FavoriteListWithEventDetailsDTO();
             dto.setFavoriteList(list);
 
-            List<EventDTO> eventDTOs = events.stream().map(resp -> {
-                EventDTO dtoEvent = new EventDTO();
-                dtoEvent.setId(resp.getId());
-                dtoEvent.setName(resp.getName());
-                dtoEvent.setStartDate(resp.getStartDate());
-                dtoEvent.setEndDate(resp.getEndDate());
-                dtoEvent.setLocation(resp.getLocation());
-                dtoEvent.setDescription(resp.getDescription());
-                dtoEvent.setPrice(resp.getPrice());
-                dtoEvent.setCapacity(resp.getCapacity());
-                dtoEvent.setStatus(resp.getStatus());
-                dtoEvent.setOrganizerId(resp.getOrganizerId());
-                return dtoEvent;
-            }).collect(Collectors.toList());
-
+            List<EventDTO> eventDTOs = list.getEventIds().stream()
+                    .map(eventsById::get)
+                    .filter(Objects::nonNull)
+                    .map(EventMapper::toEventDTO)
+                    .collect(Collectors.toList());
             dto.setEvents(eventDTOs);
 
-            // Aggiungi qui la chiamata per settare ownerUsername
-            String ownerUsername = service.getUserNameById(list.getOwnerId());
-            dto.setOwnerUsername(ownerUsername);
+            dto.setOwnerUsername(ownerNames.get(list.getOwnerId()));
 
             return dto;
         }).collect(Collectors.toList());
@@ -384,15 +394,21 @@ public class FavoriteListController {
         return ResponseEntity.ok(lists);
     }
 
+    private static ResponseEntity<?> cachedJson(WebRequest webRequest, PublicListCache.CachedResponse cached) {
+        if (webRequest.checkNotModified(cached.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(cached.etag()).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(cached.etag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(cached.json());
+    }
 
-
-
-
-
-
-
-
-
-
-
+    // 304 senza corpo (la lista non viene serializzata) se il client ha già questa versione
+    private static ResponseEntity<?> withETag(WebRequest webRequest, String etag, Object body) {
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(body);
+    }
 }
@@ -0,0 +1,66 @@
+package com.dipartimento.favservice.controller;
+
+import com.dipartimento.favservice.dto.FavoriteListWithEventDetailsDTO;
+import com.dipartimento.favservice.dto.FavoriteListWithOwnerDTO;
+import com.dipartimento.favservice.service.ReactiveFavoriteListService;
+import com.dipartimento.favservice.util.JwtUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.UUID;
+
+// Versione non bloccante delle composizioni di /api/favorites: nessun thread servlet resta
+// occupato durante le chiamate a userService / eventService.
+@RestController
+@RequestMapping("/api/v2/favorites")
+public class FavoriteListReactiveController {
+
+    private static final Logger log = LoggerFactory.getLogger(FavoriteListReactiveController.class);
+
+    @Autowired
+    private ReactiveFavoriteListService service;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @GetMapping("/lists/{id}/with-events")
+    public Mono<ResponseEntity<Map<String, Object>>> getListWithEvents(
+            @RequestHeader("Authorization") String authHeader,
+            @PathVariable UUID id) {
+        Long userId = jwtUtil.extractUserId(authHeader);
+        return service.getListWithEvents(id, userId, authHeader)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.status(HttpStatus.FORBIDDEN).build());
+    }
+
+    @GetMapping("/lists/{id}/with-owner")
+    public Mono<ResponseEntity<?>> getListWithOwner(
+            @RequestHeader("Authorization") String authHeader,
+            @PathVariable UUID id) {
+        return service.getListWithOwner(id)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .onErrorResume(RuntimeException.class, e -> {
+                    log.error("Errore nel recupero lista con owner: ", e);
+                    return Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage()));
+                });
+    }
+
+    @GetMapping("/lists/shared-with-me/with-events")
+    public Flux<FavoriteListWithEventDetailsDTO> getSharedWithMeWithEvents(
+            @RequestHeader("Authorization") String authHeader) {
+        Long userId = jwtUtil.extractUserId(authHeader);
+        return service.getSharedWithMeWithEvents(userId, authHeader);
+    }
+
+    @GetMapping("/my/{userId}")
+    public Flux<FavoriteListWithOwnerDTO> getMyListsWithOwner(@PathVariable Long userId) {
+        return service.getMyListsWithOwner(userId);
+    }
+}
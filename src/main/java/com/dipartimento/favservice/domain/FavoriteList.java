@@ -2,9 +2,12 @@ package com.dipartimento.favservice.domain;
 
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
 import java.util.UUID;
 
 @Entity
@@ -24,20 +27,42 @@ public class FavoriteList {
     @Enumerated(EnumType.STRING)
     private Visibility visibility;
 
+    // SUBSELECT: le collezioni di tutte le liste lette da una query vengono caricate
+    // con una sola SELECT per collezione (niente N+1 durante la serializzazione).
+    // Sono insiemi con chiave (lista, elemento): una modifica è una sola INSERT / DELETE.
     @ElementCollection
-    private List<Long> eventIds = new ArrayList<>();
+    @CollectionTable(name = "favorite_list_events", joinColumns = @JoinColumn(name = "favorite_list_id"))
+    @Column(name = "event_id", nullable = false)
+    @OrderBy
+    @Fetch(FetchMode.SUBSELECT)
+    private Set<Long> eventIds = new LinkedHashSet<>();
 
     @ElementCollection
-    private List<Long> sharedWith = new ArrayList<>();
+    @CollectionTable(name = "favorite_list_shares", joinColumns = @JoinColumn(name = "favorite_list_id"))
+    @Column(name = "user_id", nullable = false)
+    @OrderBy
+    @Fetch(FetchMode.SUBSELECT)
+    private Set<Long> sharedWith = new LinkedHashSet<>();
 
     private String capabilityToken;
 
+    // Incrementata a ogni modifica (anche dalle scritture native del repository): ETag e If-Match
+    @Version
+    private Long version;
+
     public enum Visibility {
         PRIVATE,
         SHARED,
         PUBLIC
     }
 
+    // PRIVATE: solo l'owner; SHARED: owner e utenti in sharedWith; PUBLIC: tutti
+    public boolean isVisibleTo(Long userId) {
+        if (visibility == Visibility.PRIVATE) return ownerId.equals(userId);
+        if (visibility == Visibility.SHARED) return ownerId.equals(userId) || sharedWith.contains(userId);
+        return true;
+    }
+
 
     public UUID getId() {
         return id;
@@ -79,20 +104,23 @@ public class FavoriteList {
         this.visibility = visibility;
     }
 
-    public List<Long> getEventIds() {
+    public Set<Long> getEventIds() {
         return eventIds;
     }
 
-    public void setEventIds(List<Long> eventIds) {
-        this.eventIds = eventIds;
+    // Aggiorna l'insieme esistente: Hibernate scrive solo gli elementi aggiunti / rimossi
+    public void setEventIds(Collection<Long> eventIds) {
+        this.eventIds.clear();
+        if (eventIds != null) this.eventIds.addAll(eventIds);
     }
 
-    public List<Long> getSharedWith() {
+    public Set<Long> getSharedWith() {
         return sharedWith;
     }
 
-    public void setSharedWith(List<Long> sharedWith) {
-        this.sharedWith = sharedWith;
+    public void setSharedWith(Collection<Long> sharedWith) {
+        this.sharedWith.clear();
+        if (sharedWith != null) this.sharedWith.addAll(sharedWith);
     }
 
     public String getCapabilityToken() {
@@ -102,4 +130,8 @@ public class FavoriteList {
     public void setCapabilityToken(String capabilityToken) {
         this.capabilityToken = capabilityToken;
     }
+
+    public Long getVersion() {
+        return version;
+    }
 }
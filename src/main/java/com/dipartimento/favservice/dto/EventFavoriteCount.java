@@ -0,0 +1,40 @@
+package com.dipartimento.favservice.dto;
+
+// Popolarità di un evento: liste che lo contengono e utenti (owner distinti) che lo hanno tra i preferiti
+public class EventFavoriteCount {
+    private Long eventId;
+    private long lists;
+    private long users;
+
+    public EventFavoriteCount() {}
+
+    public EventFavoriteCount(Long eventId, long lists, long users) {
+        this.eventId = eventId;
+        this.lists = lists;
+        this.users = users;
+    }
+
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(Long eventId) {
+        this.eventId = eventId;
+    }
+
+    public long getLists() {
+        return lists;
+    }
+
+    public void setLists(long lists) {
+        this.lists = lists;
+    }
+
+    public long getUsers() {
+        return users;
+    }
+
+    public void setUsers(long users) {
+        this.users = users;
+    }
+}
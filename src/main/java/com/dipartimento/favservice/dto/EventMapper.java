@@ -0,0 +1,30 @@
+package com.dipartimento.favservice.dto;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Conversione da EventResponseDTO (eventService) a EventDTO (risposte di favService)
+public final class EventMapper {
+
+    private EventMapper() {
+    }
+
+    public static EventDTO toEventDTO(EventResponseDTO resp) {
+        EventDTO dto = new EventDTO();
+        dto.setId(resp.getId());
+        dto.setName(resp.getName());
+        dto.setStartDate(resp.getStartDate());
+        dto.setEndDate(resp.getEndDate());
+        dto.setLocation(resp.getLocation());
+        dto.setDescription(resp.getDescription());
+        dto.setPrice(resp.getPrice());
+        dto.setCapacity(resp.getCapacity());
+        dto.setStatus(resp.getStatus());
+        dto.setOrganizerId(resp.getOrganizerId());
+        return dto;
+    }
+
+    public static List<EventDTO> toEventDTOs(List<EventResponseDTO> events) {
+        return events.stream().map(EventMapper::toEventDTO).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,90 @@
+package com.dipartimento.favservice.dto;
+
+import com.dipartimento.favservice.domain.FavoriteList;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Risultato dell'aggregazione lista + owner + sharedBy + eventi.
+// "missing" contiene le parti non disponibili (timeout o errore del servizio esterno).
+public class FavoriteListDetails {
+
+    public static final String OWNER = "owner";
+    public static final String SHARED_BY = "sharedBy";
+    public static final String EVENTS = "events";
+
+    private FavoriteList favoriteList;
+    private UsersAccountsDTO owner;
+    private UsersAccountsDTO sharedBy;
+    private List<EventResponseDTO> events = new ArrayList<>();
+    private List<String> missing = new ArrayList<>();
+
+    public FavoriteList getFavoriteList() {
+        return favoriteList;
+    }
+
+    public void setFavoriteList(FavoriteList favoriteList) {
+        this.favoriteList = favoriteList;
+    }
+
+    public UsersAccountsDTO getOwner() {
+        return owner;
+    }
+
+    public void setOwner(UsersAccountsDTO owner) {
+        this.owner = owner;
+    }
+
+    public UsersAccountsDTO getSharedBy() {
+        return sharedBy;
+    }
+
+    public void setSharedBy(UsersAccountsDTO sharedBy) {
+        this.sharedBy = sharedBy;
+    }
+
+    public List<EventResponseDTO> getEvents() {
+        return events;
+    }
+
+    public void setEvents(List<EventResponseDTO> events) {
+        this.events = events;
+    }
+
+    public List<String> getMissing() {
+        return missing;
+    }
+
+    public void setMissing(List<String> missing) {
+        this.missing = missing;
+    }
+
+    // Payload di /lists/{id}/with-events (v1 e v2)
+    public Map<String, Object> toWithEvents() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("favoriteList", favoriteList);
+        response.put("events", events);
+        response.put("missing", missing);
+        return response;
+    }
+
+    public FavoriteListWithEventDetailsDTO toWithEventDetails() {
+        FavoriteListWithEventDetailsDTO dto = new FavoriteListWithEventDetailsDTO();
+        dto.setFavoriteList(favoriteList);
+        dto.setEvents(EventMapper.toEventDTOs(events));
+        dto.setOwnerUsername(owner != null ? owner.getName() : null);
+        dto.setMissing(missing);
+        return dto;
+    }
+
+    public FavoriteListWithOwnerDTO toWithOwner() {
+        FavoriteListWithOwnerDTO dto = new FavoriteListWithOwnerDTO();
+        dto.setFavoriteList(favoriteList);
+        dto.setOwner(owner);
+        dto.setSharedBy(sharedBy);
+        dto.setMissing(missing);
+        return dto;
+    }
+}
@@ -0,0 +1,26 @@
+package com.dipartimento.favservice.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Modifica in blocco degli eventi di una lista (es. import da calendario)
+public class FavoriteListEventsBulkRequest {
+    private List<Long> add = new ArrayList<>();
+    private List<Long> remove = new ArrayList<>();
+
+    public List<Long> getAdd() {
+        return add;
+    }
+
+    public void setAdd(List<Long> add) {
+        this.add = add;
+    }
+
+    public List<Long> getRemove() {
+        return remove;
+    }
+
+    public void setRemove(List<Long> remove) {
+        this.remove = remove;
+    }
+}
@@ -0,0 +1,39 @@
+package com.dipartimento.favservice.dto;
+
+// Esito della modifica in blocco per un singolo eventId
+public class FavoriteListEventsBulkResult {
+
+    public enum Status {
+        ADDED,
+        ALREADY_PRESENT,
+        EVENT_NOT_FOUND,
+        REMOVED,
+        NOT_PRESENT
+    }
+
+    private Long eventId;
+    private Status status;
+
+    public FavoriteListEventsBulkResult() {}
+
+    public FavoriteListEventsBulkResult(Long eventId, Status status) {
+        this.eventId = eventId;
+        this.status = status;
+    }
+
+    public Long getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(Long eventId) {
+        this.eventId = eventId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+}
@@ -4,12 +4,14 @@ package com.dipartimento.favservice.dto;
 
 import com.dipartimento.favservice.domain.FavoriteList;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class FavoriteListWithEventDetailsDTO {
     private FavoriteList favoriteList;
     private List<EventDTO> events;
     private String ownerUsername;
+    private List<String> missing = new ArrayList<>(); // parti non disponibili (owner, events)
 
     public String getOwnerUsername() {
         return ownerUsername;
@@ -35,4 +37,12 @@ public class FavoriteListWithEventDetailsDTO {
     public void setEvents(List<EventDTO> events) {
         this.events = events;
     }
+
+    public List<String> getMissing() {
+        return missing;
+    }
+
+    public void setMissing(List<String> missing) {
+        this.missing = missing;
+    }
 }
@@ -2,10 +2,14 @@ package com.dipartimento.favservice.dto;
 
 import com.dipartimento.favservice.domain.FavoriteList;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class FavoriteListWithOwnerDTO {
     private FavoriteList favoriteList;  // o un DTO equivalente della lista
     private UsersAccountsDTO owner;
     private UsersAccountsDTO sharedBy;
+    private List<String> missing = new ArrayList<>(); // parti non disponibili (owner, sharedBy, events)
 
     public FavoriteListWithOwnerDTO() {}
 
@@ -32,4 +36,12 @@ public class FavoriteListWithOwnerDTO {
     public void setOwner(UsersAccountsDTO owner) {
         this.owner = owner;
     }
+
+    public List<String> getMissing() {
+        return missing;
+    }
+
+    public void setMissing(List<String> missing) {
+        this.missing = missing;
+    }
 }
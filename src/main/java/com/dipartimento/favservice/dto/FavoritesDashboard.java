@@ -0,0 +1,77 @@
+package com.dipartimento.favservice.dto;
+
+import com.dipartimento.favservice.domain.FavoriteList;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Schermata principale della SPA in una sola risposta: liste proprie, liste condivise con l'utente
+// e nomi di owner / sharedBy (al posto di /lists, /lists/shared-with-me e /my/{userId})
+public class FavoritesDashboard {
+
+    // Stessi campi JSON di FavoriteList
+    public static class ListEntry {
+        private UUID id;
+        private Long ownerId;
+        private String name;
+        private Long sharedByUserId;
+        private FavoriteList.Visibility visibility;
+        private List<Long> eventIds = new ArrayList<>();
+        private List<Long> sharedWith = new ArrayList<>();
+        private String capabilityToken;
+        private Long version;
+
+        public UUID getId() { return id; }
+        public void setId(UUID id) { this.id = id; }
+
+        public Long getOwnerId() { return ownerId; }
+        public void setOwnerId(Long ownerId) { this.ownerId = ownerId; }
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+
+        public Long getSharedByUserId() { return sharedByUserId; }
+        public void setSharedByUserId(Long sharedByUserId) { this.sharedByUserId = sharedByUserId; }
+
+        public FavoriteList.Visibility getVisibility() { return visibility; }
+        public void setVisibility(FavoriteList.Visibility visibility) { this.visibility = visibility; }
+
+        public List<Long> getEventIds() { return eventIds; }
+        public void setEventIds(List<Long> eventIds) { this.eventIds = eventIds; }
+
+        public List<Long> getSharedWith() { return sharedWith; }
+        public void setSharedWith(List<Long> sharedWith) { this.sharedWith = sharedWith; }
+
+        public String getCapabilityToken() { return capabilityToken; }
+        public void setCapabilityToken(String capabilityToken) { this.capabilityToken = capabilityToken; }
+
+        public Long getVersion() { return version; }
+        public void setVersion(Long version) { this.version = version; }
+    }
+
+    private Long userId;
+    private Long version;
+    private List<ListEntry> owned = new ArrayList<>();
+    private List<ListEntry> sharedWithMe = new ArrayList<>();
+    private Map<Long, String> userNames = new HashMap<>();
+
+    public FavoritesDashboard() {}
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    public List<ListEntry> getOwned() { return owned; }
+    public void setOwned(List<ListEntry> owned) { this.owned = owned; }
+
+    public List<ListEntry> getSharedWithMe() { return sharedWithMe; }
+    public void setSharedWithMe(List<ListEntry> sharedWithMe) { this.sharedWithMe = sharedWithMe; }
+
+    public Map<Long, String> getUserNames() { return userNames; }
+    public void setUserNames(Map<Long, String> userNames) { this.userNames = userNames; }
+}
@@ -0,0 +1,20 @@
+package com.dipartimento.favservice.dto;
+
+// Registrazione di un nuovo utente, pubblicata da userService
+public class UserRegisteredEvent {
+    private Long userId;
+
+    public UserRegisteredEvent() {}
+
+    public UserRegisteredEvent(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+}
@@ -1,8 +1,13 @@
 package com.dipartimento.favservice.repository;
 
 import com.dipartimento.favservice.domain.FavoriteList;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -13,9 +18,59 @@ public interface FavoriteListRepository extends JpaRepository<FavoriteList, UUID
     List<FavoriteList> findByOwnerId(Long ownerId);
     Optional<FavoriteList> findByCapabilityToken(String token);
 
-    List<FavoriteList> findByVisibility(String visibility);
+    List<FavoriteList> findByVisibility(FavoriteList.Visibility visibility);
+
+    // Paginazione keyset per id (indice ix_favorite_lists_visibility_id)
+    List<FavoriteList> findByVisibilityOrderByIdAsc(FavoriteList.Visibility visibility, Limit limit);
+
+    List<FavoriteList> findByVisibilityAndIdGreaterThanOrderByIdAsc(FavoriteList.Visibility visibility, UUID after, Limit limit);
 
     // Assuming sharedWith is a collection of Long userIds
     List<FavoriteList> findBySharedWithContains(Long userId);
-}
 
+    boolean existsByIdAndOwnerId(UUID id, Long ownerId);
+
+    boolean existsByIdAndOwnerIdAndVersion(UUID id, Long ownerId, Long version);
+
+    // Mutazioni atomiche: controllo del proprietario e scrittura nello stesso statement,
+    // senza caricare la lista. Restituiscono il numero di righe toccate (0 = già presente / assente o non autorizzato).
+    @Modifying
+    @Transactional
+    @Query(value = "insert into favorite_list_events (favorite_list_id, event_id) " +
+            "select f.id, :eventId from favorite_lists f where f.id = :listId and f.owner_id = :ownerId " +
+            "on conflict do nothing", nativeQuery = true)
+    int addEventIfOwner(@Param("listId") UUID listId, @Param("ownerId") Long ownerId, @Param("eventId") Long eventId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "delete from favorite_list_events where favorite_list_id = :listId and event_id = :eventId " +
+            "and exists (select 1 from favorite_lists f where f.id = :listId and f.owner_id = :ownerId)", nativeQuery = true)
+    int removeEventIfOwner(@Param("listId") UUID listId, @Param("ownerId") Long ownerId, @Param("eventId") Long eventId);
+
+    // Le scritture native non passano da Hibernate: la versione va incrementata nella stessa transazione
+    @Modifying
+    @Transactional
+    @Query(value = "update favorite_lists set version = version + 1 where id = :listId and owner_id = :ownerId", nativeQuery = true)
+    int incrementVersion(@Param("listId") UUID listId, @Param("ownerId") Long ownerId);
+
+    // If-Match: 0 righe se la versione non è più quella attesa
+    @Modifying
+    @Transactional
+    @Query(value = "update favorite_lists set version = version + 1 " +
+            "where id = :listId and owner_id = :ownerId and version = :expectedVersion", nativeQuery = true)
+    int incrementVersionIfMatch(@Param("listId") UUID listId, @Param("ownerId") Long ownerId,
+                                @Param("expectedVersion") Long expectedVersion);
+
+    // Le tre liste di default in un solo INSERT; quelle già presenti (stesso owner e default_kind) vengono saltate
+    @Modifying
+    @Transactional
+    @Query(value = "insert into favorite_lists (id, owner_id, name, visibility, capability_token, version, default_kind) values " +
+            "(:privateId, :ownerId, 'Preferiti Privati ', 'PRIVATE', :privateToken, 0, 'PRIVATE'), " +
+            "(:sharedId, :ownerId, 'Preferiti Condivisi', 'SHARED', :sharedToken, 0, 'SHARED'), " +
+            "(:publicId, :ownerId, 'Preferiti Pubblici', 'PUBLIC', :publicToken, 0, 'PUBLIC') " +
+            "on conflict do nothing", nativeQuery = true)
+    int insertDefaultLists(@Param("ownerId") Long ownerId,
+                           @Param("privateId") UUID privateId, @Param("privateToken") String privateToken,
+                           @Param("sharedId") UUID sharedId, @Param("sharedToken") String sharedToken,
+                           @Param("publicId") UUID publicId, @Param("publicToken") String publicToken);
+}
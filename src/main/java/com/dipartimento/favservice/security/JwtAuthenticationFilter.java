@@ -19,6 +19,12 @@ import java.util.List;
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private final JwtUtil jwtUtil;
+
+    public JwtAuthenticationFilter(JwtUtil jwtUtil) {
+        this.jwtUtil = jwtUtil;
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
@@ -28,13 +34,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
 
-            if (JwtUtil.validateToken(token)) {
-                String username = JwtUtil.extractUsername(token);
-                String role = JwtUtil.extractUserRole(token);
-
-                SimpleGrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + role);
+            // Una sola verifica per richiesta: i claims restano nel SecurityContext come JwtPrincipal
+            JwtPrincipal principal = jwtUtil.authenticate(token);
+            if (principal != null) {
+                SimpleGrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + principal.role());
                 UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(username, null, List.of(authority));
+                        new UsernamePasswordAuthenticationToken(principal, null, List.of(authority));
                 SecurityContextHolder.getContext().setAuthentication(authentication);
             }
         }
@@ -0,0 +1,13 @@
+package com.dipartimento.favservice.security;
+
+import java.security.Principal;
+import java.time.Instant;
+
+// Claims del token già verificato, salvati nel SecurityContext dal JwtAuthenticationFilter
+public record JwtPrincipal(Long userId, String username, String role, Instant expiresAt) implements Principal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
@@ -1,5 +1,6 @@
 package com.dipartimento.favservice.security;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -26,10 +27,17 @@ public class SecurityConfig {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .csrf(csrf -> csrf.disable()) // disabilita CSRF per test / API pubbliche
                 .authorizeHttpRequests(auth -> auth
+                        // il dispatch ASYNC delle risposte Mono/Flux (/api/v2) è già stato autorizzato sulla richiesta iniziale
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         // endpoint pubblici senza autenticazione
                         .requestMatchers("/auth/**").permitAll()
                         .requestMatchers("/api/favorites/public/**").permitAll()
                         .requestMatchers("/public/**").permitAll()
+                        // health e scrape Prometheus: serviti solo sulla porta di management (management.server.port), non su quella delle API
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
+                        // endpoint amministrativi: invalidazione cache eventi, provisioning/backfill delle liste
+                        // predefinite e indice evento -> liste (/admin/events/{eventId}/lists)
+                        .requestMatchers("/api/favorites/admin/**").hasRole("ADMIN")
                         // tutte le altre richieste richiedono autenticazione
                         .anyRequest().authenticated()
                 )
@@ -49,6 +57,7 @@ public class SecurityConfig {
         ));
         configuration.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(List.of("*"));
+        configuration.setExposedHeaders(List.of("X-Next-Cursor", "ETag"));
         configuration.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -0,0 +1,118 @@
+package com.dipartimento.favservice.service;
+
+import com.dipartimento.favservice.domain.FavoriteList;
+import com.dipartimento.favservice.dto.UserRegisteredEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+// Liste di default (privata, condivisa, pubblica) create fuori dal percorso di lettura di GET /lists:
+// alla registrazione dell'utente (eventi di userService, a blocchi) e in blocco per gli utenti già esistenti.
+// Come prima in GET /lists, le liste vengono create solo per chi non ne ha nessuna; l'indice unico
+// (owner_id, default_kind) esclude i duplicati se lo stesso utente arriva due volte in parallelo.
+@Service
+public class DefaultListsProvisioner {
+
+    private static final Logger log = LoggerFactory.getLogger(DefaultListsProvisioner.class);
+
+    private static final String INSERT_DEFAULT_LIST =
+            "insert into favorite_lists (id, owner_id, name, visibility, capability_token, version, default_kind) " +
+            "values (?, ?, ?, ?, ?, 0, ?) on conflict do nothing";
+
+    private record DefaultList(String name, FavoriteList.Visibility visibility) {
+    }
+
+    private static final List<DefaultList> DEFAULT_LISTS = List.of(
+            new DefaultList("Preferiti Privati ", FavoriteList.Visibility.PRIVATE),
+            new DefaultList("Preferiti Condivisi", FavoriteList.Visibility.SHARED),
+            new DefaultList("Preferiti Pubblici", FavoriteList.Visibility.PUBLIC));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate writeTx;
+    private final int batchSize;
+    private final MeterRegistry meterRegistry;
+    private final FavoritesDashboardService dashboards;
+
+    public DefaultListsProvisioner(NamedParameterJdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${favorites.default-lists.batch-size:500}") int batchSize,
+                                   MeterRegistry meterRegistry,
+                                   FavoritesDashboardService dashboards) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.writeTx = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.meterRegistry = meterRegistry;
+        this.dashboards = dashboards;
+    }
+
+    // Consumer degli eventi di registrazione; i messaggi ripetuti (consegna at-least-once) non creano duplicati
+    public int onUsersRegistered(List<UserRegisteredEvent> events) {
+        List<Long> userIds = events.stream().map(UserRegisteredEvent::getUserId).filter(Objects::nonNull).toList();
+        return provision(userIds, "event");
+    }
+
+    // Utenti registrati prima dell'introduzione degli eventi (id esportati da userService)
+    public int backfill(Collection<Long> userIds) {
+        return provision(userIds, "backfill");
+    }
+
+    // Restituisce il numero di utenti per cui sono state create le liste
+    private int provision(Collection<Long> userIds, String source) {
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(userIds));
+        int provisioned = 0;
+        for (int from = 0; from < distinct.size(); from += batchSize) {
+            List<Long> batch = distinct.subList(from, Math.min(from + batchSize, distinct.size()));
+            provisioned += writeTx.execute(status -> provisionBatch(batch));
+        }
+        log.debug("Liste di default ({}): {} utenti su {}", source, provisioned, distinct.size());
+        provisionedUsers(source).increment(provisioned);
+        return provisioned;
+    }
+
+    // Una query per trovare chi ha già delle liste e un solo batch JDBC con tre righe per ciascun altro utente
+    private int provisionBatch(List<Long> userIds) {
+        Set<Long> withLists = new HashSet<>(jdbcTemplate.queryForList(
+                "select distinct owner_id from favorite_lists where owner_id in (:ids)",
+                Map.of("ids", userIds), Long.class));
+
+        List<Long> provisioned = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        for (Long userId : userIds) {
+            if (withLists.contains(userId)) continue;
+            provisioned.add(userId);
+            for (DefaultList list : DEFAULT_LISTS) {
+                String kind = list.visibility().name();
+                rows.add(new Object[]{UUID.randomUUID(), userId, list.name(), kind, UUID.randomUUID().toString(), kind});
+            }
+        }
+        if (rows.isEmpty()) return 0;
+
+        jdbcTemplate.getJdbcTemplate().batchUpdate(INSERT_DEFAULT_LIST, rows);
+        // dashboard già lette prima della registrazione (vuote): ricostruite alla lettura successiva
+        dashboards.invalidate(provisioned);
+        return provisioned.size();
+    }
+
+    private Counter provisionedUsers(String source) {
+        return Counter.builder("favorites.default-lists.provisioned")
+                .baseUnit("users")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,134 @@
+package com.dipartimento.favservice.service;
+
+import com.dipartimento.favservice.dto.EventFavoriteCount;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+// Indice inverso evento -> liste (ix_favorite_list_events_event_list) e contatori per evento (favorite_event_counts).
+// I metodi events* / listDeleted vanno chiamati nella transazione della scrittura su favorite_list_events:
+// l'update del contatore blocca la sua riga prima di controllare le altre liste dell'owner, così due aggiunte
+// concorrenti dello stesso evento in liste dello stesso utente contano l'utente una volta sola.
+// Ordine dei lock in ogni scrittura: riga della lista, contatori (event_id crescente), dashboard (user_id crescente).
+@Service
+public class EventFavoritesIndex {
+
+    // l'owner ha l'evento in un'altra lista (dopo la scrittura su favorite_list_events)
+    private static final String NO_OTHER_LIST_OF_OWNER =
+            "not exists (select 1 from favorite_list_events o join favorite_lists f on f.id = o.favorite_list_id " +
+            "where o.event_id = :eventId and f.owner_id = :ownerId and f.id <> :listId)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final int maxIds;
+    private final int maxPageSize;
+
+    public EventFavoritesIndex(NamedParameterJdbcTemplate jdbcTemplate,
+                               @Value("${favorites.event-counts.max-ids:1000}") int maxIds,
+                               @Value("${favorites.public-lists.max-page-size:100}") int maxPageSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxIds = maxIds;
+        this.maxPageSize = maxPageSize;
+    }
+
+    // Contatori per più eventi con una sola query per chiave primaria; 0 per gli eventi mai aggiunti
+    public List<EventFavoriteCount> getCounts(Collection<Long> eventIds) {
+        Set<Long> distinct = new LinkedHashSet<>();
+        eventIds.stream().filter(Objects::nonNull).forEach(distinct::add);
+        if (distinct.size() > maxIds) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Troppi eventi nella richiesta (max " + maxIds + ")");
+        }
+        if (distinct.isEmpty()) return List.of();
+
+        Map<Long, EventFavoriteCount> counts = new HashMap<>();
+        jdbcTemplate.query("select event_id, list_count, user_count from favorite_event_counts where event_id in (:eventIds)",
+                Map.of("eventIds", distinct),
+                rs -> {
+                    long eventId = rs.getLong("event_id");
+                    counts.put(eventId, new EventFavoriteCount(eventId, rs.getLong("list_count"), rs.getLong("user_count")));
+                });
+
+        List<EventFavoriteCount> result = new ArrayList<>(distinct.size());
+        for (Long eventId : distinct) {
+            result.add(counts.getOrDefault(eventId, new EventFavoriteCount(eventId, 0, 0)));
+        }
+        return result;
+    }
+
+    // Liste che contengono l'evento, ordinate per id a partire dal cursore "after" (escluso)
+    public List<UUID> getListIds(Long eventId, UUID after, int size) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("eventId", eventId);
+        params.put("after", after);
+        params.put("size", getPageSize(size));
+        return jdbcTemplate.queryForList("select favorite_list_id from favorite_list_events where event_id = :eventId " +
+                (after == null ? "" : "and favorite_list_id > :after ") +
+                "order by favorite_list_id limit :size", params, UUID.class);
+    }
+
+    public int getPageSize(int requested) {
+        return Math.max(1, Math.min(requested, maxPageSize));
+    }
+
+    public void eventsAdded(UUID listId, Long ownerId, Collection<Long> eventIds) {
+        eventsChanged(listId, ownerId, eventIds, List.of());
+    }
+
+    public void eventsRemoved(UUID listId, Long ownerId, Collection<Long> eventIds) {
+        eventsChanged(listId, ownerId, List.of(), eventIds);
+    }
+
+    // Eventi appena inseriti / eliminati dalla lista, in un solo passaggio in ordine crescente di event_id:
+    // ogni transazione blocca i contatori sempre nello stesso ordine
+    public void eventsChanged(UUID listId, Long ownerId, Collection<Long> added, Collection<Long> removed) {
+        Set<Long> addedIds = new HashSet<>(added);
+        Set<Long> eventIds = new TreeSet<>(added);
+        eventIds.addAll(removed);
+        for (Long eventId : eventIds) {
+            Map<String, Object> params = Map.of("eventId", eventId, "ownerId", ownerId, "listId", listId);
+            if (addedIds.contains(eventId)) {
+                int updated = jdbcTemplate.update("update favorite_event_counts set list_count = list_count + 1 " +
+                        "where event_id = :eventId", params);
+                if (updated == 0) {
+                    jdbcTemplate.update("insert into favorite_event_counts (event_id, list_count, user_count) " +
+                            "values (:eventId, 0, 0) on conflict do nothing", params);
+                    jdbcTemplate.update("update favorite_event_counts set list_count = list_count + 1 " +
+                            "where event_id = :eventId", params);
+                }
+                jdbcTemplate.update("update favorite_event_counts set user_count = user_count + 1 " +
+                        "where event_id = :eventId and " + NO_OTHER_LIST_OF_OWNER, params);
+            } else {
+                jdbcTemplate.update("update favorite_event_counts set list_count = list_count - 1 " +
+                        "where event_id = :eventId", params);
+                jdbcTemplate.update("update favorite_event_counts set user_count = user_count - 1 " +
+                        "where event_id = :eventId and " + NO_OTHER_LIST_OF_OWNER, params);
+            }
+        }
+    }
+
+    // Dopo l'eliminazione della lista, con i suoi eventi letti prima. I contatori vengono prima bloccati
+    // in ordine di event_id (SELECT ... FOR UPDATE), poi aggiornati con due update sull'insieme
+    public void listDeleted(UUID listId, Long ownerId, Collection<Long> eventIds) {
+        if (eventIds.isEmpty()) return;
+        Map<String, Object> params = Map.of("ownerId", ownerId, "listId", listId, "eventIds", new TreeSet<>(eventIds));
+        jdbcTemplate.queryForList("select event_id from favorite_event_counts where event_id in (:eventIds) " +
+                "order by event_id for update", params, Long.class);
+        jdbcTemplate.update("update favorite_event_counts set list_count = list_count - 1 where event_id in (:eventIds)", params);
+        jdbcTemplate.update("update favorite_event_counts set user_count = user_count - 1 where event_id in (:eventIds) and " +
+                "not exists (select 1 from favorite_list_events o join favorite_lists f on f.id = o.favorite_list_id " +
+                "where o.event_id = favorite_event_counts.event_id and f.owner_id = :ownerId and f.id <> :listId)", params);
+    }
+}
@@ -0,0 +1,132 @@
+package com.dipartimento.favservice.service;
+
+import com.dipartimento.favservice.config.EventClient;
+import com.dipartimento.favservice.config.UserClient;
+import com.dipartimento.favservice.domain.FavoriteList;
+import com.dipartimento.favservice.dto.EventResponseDTO;
+import com.dipartimento.favservice.dto.FavoriteListDetails;
+import com.dipartimento.favservice.dto.UsersAccountsDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+// Dettaglio di una lista: le parti che l'endpoint restituisce (owner, sharedBy, eventi) vengono richieste in parallelo,
+// ognuno con il proprio timeout. La latenza è quella della dipendenza più lenta;
+// una dipendenza in errore o in timeout finisce in "missing" invece di far fallire la risposta.
+@Service
+public class FavoriteListDetailsService {
+
+    private static final Logger log = LoggerFactory.getLogger(FavoriteListDetailsService.class);
+
+    private final UserClient userClient;
+    private final EventClient eventClient;
+    private final Duration ownerTimeout;
+    private final Duration sharedByTimeout;
+    private final Duration eventsTimeout;
+
+    public FavoriteListDetailsService(UserClient userClient,
+                                      EventClient eventClient,
+                                      @Value("${favorites.details.owner-timeout:500ms}") Duration ownerTimeout,
+                                      @Value("${favorites.details.shared-by-timeout:500ms}") Duration sharedByTimeout,
+                                      @Value("${favorites.details.events-timeout:2s}") Duration eventsTimeout) {
+        this.userClient = userClient;
+        this.eventClient = eventClient;
+        this.ownerTimeout = ownerTimeout;
+        this.sharedByTimeout = sharedByTimeout;
+        this.eventsTimeout = eventsTimeout;
+    }
+
+    // /with-owner: owner e sharedBy
+    public Mono<FavoriteListDetails> getWithOwner(FavoriteList list) {
+        return aggregate(list, null, true, true, false);
+    }
+
+    // /details: owner ed eventi (FavoriteListWithEventDetailsDTO non ha sharedBy)
+    public Mono<FavoriteListDetails> getWithEventDetails(FavoriteList list, String authHeader) {
+        return aggregate(list, authHeader, true, false, true);
+    }
+
+    // /with-events: solo gli eventi, nessuna chiamata a userService
+    public Mono<FavoriteListDetails> getWithEvents(FavoriteList list, String authHeader) {
+        return aggregate(list, authHeader, false, false, true);
+    }
+
+    // Versioni bloccanti per gli endpoint MVC di /api/favorites
+    public FavoriteListDetails getWithOwnerBlocking(FavoriteList list) {
+        return getWithOwner(list).block();
+    }
+
+    public FavoriteListDetails getWithEventDetailsBlocking(FavoriteList list, String authHeader) {
+        return getWithEventDetails(list, authHeader).block();
+    }
+
+    public FavoriteListDetails getWithEventsBlocking(FavoriteList list, String authHeader) {
+        return getWithEvents(list, authHeader).block();
+    }
+
+    // Le parti non richieste non vengono chiamate e non finiscono in "missing"
+    private Mono<FavoriteListDetails> aggregate(FavoriteList list, String authHeader,
+                                                boolean includeOwner, boolean includeSharedBy, boolean includeEvents) {
+        boolean fetchSharedBy = includeSharedBy && list.getSharedByUserId() != null;
+
+        Mono<Optional<String>> ownerName = includeOwner
+                ? withBudget(userClient.findUserName(list.getOwnerId()), ownerTimeout, FavoriteListDetails.OWNER, list)
+                : Mono.just(Optional.empty());
+
+        Mono<Optional<String>> sharedByName = fetchSharedBy
+                ? withBudget(userClient.findUserName(list.getSharedByUserId()), sharedByTimeout,
+                FavoriteListDetails.SHARED_BY, list)
+                : Mono.just(Optional.empty());
+
+        Mono<Optional<List<EventResponseDTO>>> events = includeEvents
+                ? withBudget(eventClient.getEventsByIdsAsync(list.getEventIds(), authHeader), eventsTimeout,
+                FavoriteListDetails.EVENTS, list)
+                : Mono.just(Optional.of(List.of()));
+
+        return Mono.zip(ownerName, sharedByName, events).map(parts -> {
+            FavoriteListDetails details = new FavoriteListDetails();
+            details.setFavoriteList(list);
+
+            if (includeOwner) {
+                parts.getT1().ifPresentOrElse(
+                        name -> details.setOwner(account(list.getOwnerId(), name)),
+                        () -> details.getMissing().add(FavoriteListDetails.OWNER));
+            }
+
+            if (fetchSharedBy) {
+                parts.getT2().ifPresentOrElse(
+                        name -> details.setSharedBy(account(list.getSharedByUserId(), name)),
+                        () -> details.getMissing().add(FavoriteListDetails.SHARED_BY));
+            }
+
+            parts.getT3().ifPresentOrElse(
+                    details::setEvents,
+                    () -> details.getMissing().add(FavoriteListDetails.EVENTS));
+
+            return details;
+        });
+    }
+
+    private <T> Mono<Optional<T>> withBudget(Mono<T> call, Duration timeout, String part, FavoriteList list) {
+        return call.timeout(timeout)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .onErrorResume(e -> {
+                    log.warn("Dettaglio '{}' non disponibile per lista {}: {}", part, list.getId(), e.toString());
+                    return Mono.just(Optional.empty());
+                });
+    }
+
+    private UsersAccountsDTO account(Long userId, String name) {
+        UsersAccountsDTO dto = new UsersAccountsDTO();
+        dto.setId(userId);
+        dto.setName(name);
+        return dto;
+    }
+}
@@ -1,60 +1,123 @@
 package com.dipartimento.favservice.service;
 
 import com.dipartimento.favservice.config.EventClient;
+import com.dipartimento.favservice.config.UserClient;
 import com.dipartimento.favservice.domain.FavoriteList;
 import com.dipartimento.favservice.dto.EventDTO;
+import com.dipartimento.favservice.dto.EventMapper;
 import com.dipartimento.favservice.dto.EventResponseDTO;
+import com.dipartimento.favservice.dto.FavoriteListEventsBulkRequest;
+import com.dipartimento.favservice.dto.FavoriteListEventsBulkResult;
 import com.dipartimento.favservice.dto.FavoriteListRequest;
+import com.dipartimento.favservice.dto.FavoriteListWithEventDetailsDTO;
 import com.dipartimento.favservice.dto.UsersAccountsDTO;
 import com.dipartimento.favservice.repository.FavoriteListRepository;
+import com.dipartimento.favservice.util.ETagUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.Hibernate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Mono;
 import com.dipartimento.favservice.dto.FavoriteListWithOwnerDTO;
 
 
+// Ogni metodo pubblico misurato in favorites.service (tag class, method, exception) con istogramma delle latenze
 @Service
+@Timed(value = "favorites.service", histogram = true)
 public class FavoriteListService {
 
     private final FavoriteListRepository repository;
     private final WebClient userClient;
     private final EventClient eventClient; // 👈 Usa la classe custom EventClient
+    private final UserClient usersClient;
+    private final FavoriteListDetailsService detailsService;
+    private final int eventsChunkSize;
+    private final int publicListsMaxPageSize;
+    private final int bulkMaxIds;
+    private final TransactionTemplate readOnlyTx;
+    private final TransactionTemplate writeTx;
+    private final PublicListCache publicListCache;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final FavoritesDashboardService dashboards;
+    private final EventFavoritesIndex eventIndex;
+    // creazioni delle liste di default in corso, per utente
+    private final Map<Long, CompletableFuture<Void>> defaultListsInFlight = new ConcurrentHashMap<>();
+    // istogrammi favorites.lists.size, registrati una volta per operazione
+    private final Map<String, DistributionSummary> listsSizeByOperation = new ConcurrentHashMap<>();
     private static final Logger log = LoggerFactory.getLogger(FavoriteListService.class);
 
     @Autowired
     public FavoriteListService(FavoriteListRepository repository,
-                               @Qualifier("userClient") WebClient userClient,
-                               EventClient eventClient) {
+                               @Qualifier("userWebClient") WebClient userClient,
+                               EventClient eventClient,
+                               UserClient usersClient,
+                               FavoriteListDetailsService detailsService,
+                               @Value("${services.event.by-ids-chunk-size:200}") int eventsChunkSize,
+                               @Value("${favorites.public-lists.max-page-size:100}") int publicListsMaxPageSize,
+                               @Value("${favorites.bulk.max-ids:500}") int bulkMaxIds,
+                               PlatformTransactionManager transactionManager,
+                               PublicListCache publicListCache,
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry,
+                               FavoritesDashboardService dashboards,
+                               EventFavoritesIndex eventIndex) {
         this.repository = repository;
         this.userClient = userClient;
         this.eventClient = eventClient;
+        this.usersClient = usersClient;
+        this.detailsService = detailsService;
+        this.eventsChunkSize = eventsChunkSize;
+        this.publicListsMaxPageSize = publicListsMaxPageSize;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.writeTx = new TransactionTemplate(transactionManager);
+        this.bulkMaxIds = bulkMaxIds;
+        this.publicListCache = publicListCache;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.dashboards = dashboards;
+        this.eventIndex = eventIndex;
     }
 
     public FavoriteList createList(Long ownerId, FavoriteListRequest req) {
-        for (Long sharedUserId : req.getSharedWith()) {
-            Boolean exists = userClient.get()
-                    .uri("/api/users/{id}/exists", sharedUserId)
-                    .retrieve()
-                    .bodyToMono(Boolean.class)
-                    .block();
-
-            if (exists == null || !exists) {
-                throw new IllegalArgumentException("UserId " + sharedUserId + " does not exist");
-            }
-        }
+        usersClient.validateUsersExist(req.getSharedWith());
 
         FavoriteList list = new FavoriteList();
         list.setName(req.getName());
@@ -69,22 +132,20 @@ public class FavoriteListService {
             list.setCapabilityToken(UUID.randomUUID().toString());
         }
 
-        return repository.save(list);
+        return writeTx.execute(status -> {
+            FavoriteList saved = repository.saveAndFlush(list);
+            dashboards.listChanged(saved.getId(), List.of());
+            return saved;
+        });
     }
 
     public List<FavoriteList> getMyLists(Long userId) {
-        return repository.findByOwnerId(userId);
+        return recordListsSize("mine", repository.findByOwnerId(userId));
     }
 
     public Optional<FavoriteList> getById(UUID id, Long requesterId) {
         return repository.findById(id)
-                .filter(list -> {
-                    if (list.getVisibility() == FavoriteList.Visibility.PRIVATE)
-                        return list.getOwnerId().equals(requesterId);
-                    if (list.getVisibility() == FavoriteList.Visibility.SHARED)
-                        return list.getOwnerId().equals(requesterId) || list.getSharedWith().contains(requesterId);
-                    return true;
-                });
+                .filter(list -> list.isVisibleTo(requesterId));
     }
 
 
@@ -94,13 +155,50 @@ public class FavoriteListService {
                 .filter(list -> list.getVisibility() == FavoriteList.Visibility.PUBLIC);
 
         listOpt.ifPresentOrElse(
-                list -> log.info("Lista pubblica trovata per token {}", token),
-                () -> log.warn("Lista trovata per token {} ma non è pubblica", token)
+                list -> log.debug("Lista pubblica trovata per token {}", token),
+                () -> log.debug("Nessuna lista pubblica per token {}", token)
         );
 
         return listOpt;
     }
 
+    // JSON di /public/{token} dalla cache; alla prima richiesta una sola lettura dal DB anche con richieste concorrenti
+    public Optional<PublicListCache.CachedResponse> getPublicListResponse(String token) {
+        return publicListCache.getList(token, t -> readOnlyTx.execute(status -> getPublicByToken(t)
+                .map(list -> new PublicListCache.CachedResponse(list.getId(), ETagUtil.of(list), toJson(list)))
+                .orElse(null)));
+    }
+
+    // JSON di /public/{token}/with-events dalla cache: una lettura dal DB e una chiamata byIds per token
+    public Optional<PublicListCache.CachedResponse> getPublicListWithEventsResponse(String token) {
+        return publicListCache.getListWithEvents(token, t -> {
+            FavoriteList list = readOnlyTx.execute(status -> getPublicByToken(t)
+                    .map(found -> {
+                        Hibernate.initialize(found.getEventIds());
+                        Hibernate.initialize(found.getSharedWith());
+                        return found;
+                    })
+                    .orElse(null));
+            if (list == null) return null;
+
+            FavoriteListWithEventDetailsDTO dto = new FavoriteListWithEventDetailsDTO();
+            dto.setFavoriteList(list);
+            // null: link pubblico, nessun header di auth
+            dto.setEvents(EventMapper.toEventDTOs(eventClient.getEventsByIds(list.getEventIds(), null)));
+
+            byte[] json = toJson(dto);
+            return new PublicListCache.CachedResponse(list.getId(), "\"" + DigestUtils.md5DigestAsHex(json) + "\"", json);
+        });
+    }
+
+    private byte[] toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Serializzazione non riuscita", e);
+        }
+    }
+
 
 
     public FavoriteList getListByIdAndUser(UUID listId, Long userId) {
@@ -115,8 +213,11 @@ public class FavoriteListService {
     }
 
     public EventResponseDTO addEvent(UUID listId, Long userId, Long eventId) {
-        FavoriteList list = getListByIdAndUser(listId, userId);
+        return addEvent(listId, userId, eventId, null);
+    }
 
+    // expectedVersion: versione dell'If-Match (null = nessuna condizione)
+    public EventResponseDTO addEvent(UUID listId, Long userId, Long eventId, Long expectedVersion) {
         // Controllo che l'evento esista
         EventResponseDTO event;
         try {
@@ -125,9 +226,19 @@ public class FavoriteListService {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Evento non trovato con ID: " + eventId);
         }
 
-        // Se esiste, aggiungo e salvo
-        list.getEventIds().add(eventId);
-        repository.save(list);
+        // Se esiste, lo aggiungo con una sola INSERT (idempotente, nessuna riscrittura della lista)
+        writeTx.executeWithoutResult(status -> {
+            boolean added = repository.addEventIfOwner(listId, userId, eventId) == 1;
+            if (!commitVersion(listId, userId, expectedVersion, added)) {
+                throw writeRejected(listId, userId, expectedVersion,
+                        new RuntimeException("Lista non trovata"), new RuntimeException("Non autorizzato"));
+            }
+            if (added) {
+                eventIndex.eventsAdded(listId, userId, List.of(eventId));
+                dashboards.listChanged(listId, List.of());
+            }
+        });
+        publicListCache.invalidate(listId);
 
         return event;
     }
@@ -135,96 +246,326 @@ public class FavoriteListService {
 
 
     public void removeEvent(UUID listId, Long userId, Long eventId) {
-        FavoriteList list = repository.findById(listId).orElseThrow();
-        if (!list.getOwnerId().equals(userId)) throw new RuntimeException("Unauthorized");
-        list.getEventIds().remove(eventId);
-        repository.save(list);
+        removeEvent(listId, userId, eventId, null);
+    }
+
+    public void removeEvent(UUID listId, Long userId, Long eventId, Long expectedVersion) {
+        // DELETE condizionata al proprietario; 0 righe con lista propria = evento già assente
+        writeTx.executeWithoutResult(status -> {
+            boolean removed = repository.removeEventIfOwner(listId, userId, eventId) == 1;
+            if (!commitVersion(listId, userId, expectedVersion, removed)) {
+                throw writeRejected(listId, userId, expectedVersion,
+                        new NoSuchElementException("No value present"), new RuntimeException("Unauthorized"));
+            }
+            if (removed) {
+                eventIndex.eventsRemoved(listId, userId, List.of(eventId));
+                dashboards.listChanged(listId, List.of());
+            }
+        });
+        publicListCache.invalidate(listId);
+    }
+
+    // Da chiamare nella stessa transazione di una scrittura atomica: se qualcosa è cambiato incrementa
+    // la versione (verificando l'If-Match), altrimenti controlla solo proprietario e versione.
+    // false = lista assente, non del proprietario o con versione diversa da quella attesa.
+    private boolean commitVersion(UUID listId, Long userId, Long expectedVersion, boolean changed) {
+        if (changed) {
+            return (expectedVersion == null
+                    ? repository.incrementVersion(listId, userId)
+                    : repository.incrementVersionIfMatch(listId, userId, expectedVersion)) == 1;
+        }
+        return expectedVersion == null
+                ? repository.existsByIdAndOwnerId(listId, userId)
+                : repository.existsByIdAndOwnerIdAndVersion(listId, userId, expectedVersion);
+    }
+
+    // Eccezione lanciata dentro la transazione: annulla anche la scrittura già eseguita
+    private RuntimeException writeRejected(UUID listId, Long userId, Long expectedVersion,
+                                           RuntimeException notFound, RuntimeException unauthorized) {
+        if (!repository.existsById(listId)) return notFound;
+        if (!repository.existsByIdAndOwnerId(listId, userId)) return unauthorized;
+        return versionMismatch(expectedVersion);
+    }
+
+    private static ResponseStatusException versionMismatch(Long expectedVersion) {
+        return new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                "La lista è stata modificata (versione attesa " + expectedVersion + ")");
+    }
+
+    // Aggiunge / rimuove più eventi: i nuovi id sono validati con una sola richiesta byIds
+    // (fuori transazione), poi tutte le modifiche sono applicate in un'unica transazione.
+    public List<FavoriteListEventsBulkResult> updateEvents(UUID listId, Long userId,
+                                                           FavoriteListEventsBulkRequest req, String authHeader) {
+        return updateEvents(listId, userId, req, authHeader, null);
+    }
+
+    public List<FavoriteListEventsBulkResult> updateEvents(UUID listId, Long userId, FavoriteListEventsBulkRequest req,
+                                                           String authHeader, Long expectedVersion) {
+        Set<Long> toAdd = distinctIds(req.getAdd());
+        Set<Long> toRemove = distinctIds(req.getRemove());
+
+        if (toAdd.size() + toRemove.size() > bulkMaxIds) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Troppi eventi nella richiesta (max " + bulkMaxIds + ")");
+        }
+        if (toAdd.stream().anyMatch(toRemove::contains)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Lo stesso evento non può essere sia aggiunto che rimosso");
+        }
+
+        // Ownership prima della chiamata remota: una richiesta non autorizzata non tocca eventService
+        FavoriteList list = getListByIdAndUser(listId, userId);
+        if (expectedVersion != null && !expectedVersion.equals(list.getVersion())) {
+            throw versionMismatch(expectedVersion);
+        }
+
+        Set<Long> existing = new HashSet<>();
+        if (!toAdd.isEmpty()) {
+            eventClient.getEventsByIds(toAdd, authHeader).forEach(event -> existing.add(event.getId()));
+        }
+
+        List<FavoriteListEventsBulkResult> bulkResults = writeTx.execute(status -> {
+            List<FavoriteListEventsBulkResult> results = new ArrayList<>(toAdd.size() + toRemove.size());
+            for (Long eventId : toAdd) {
+                FavoriteListEventsBulkResult.Status result;
+                if (!existing.contains(eventId)) {
+                    result = FavoriteListEventsBulkResult.Status.EVENT_NOT_FOUND;
+                } else if (repository.addEventIfOwner(listId, userId, eventId) == 1) {
+                    result = FavoriteListEventsBulkResult.Status.ADDED;
+                } else {
+                    result = FavoriteListEventsBulkResult.Status.ALREADY_PRESENT;
+                }
+                results.add(new FavoriteListEventsBulkResult(eventId, result));
+            }
+            for (Long eventId : toRemove) {
+                results.add(new FavoriteListEventsBulkResult(eventId, repository.removeEventIfOwner(listId, userId, eventId) == 1
+                        ? FavoriteListEventsBulkResult.Status.REMOVED
+                        : FavoriteListEventsBulkResult.Status.NOT_PRESENT));
+            }
+
+            List<Long> added = eventIdsWithStatus(results, FavoriteListEventsBulkResult.Status.ADDED);
+            List<Long> removed = eventIdsWithStatus(results, FavoriteListEventsBulkResult.Status.REMOVED);
+            boolean changed = !added.isEmpty() || !removed.isEmpty();
+            if (!commitVersion(listId, userId, expectedVersion, changed)) {
+                throw writeRejected(listId, userId, expectedVersion,
+                        new RuntimeException("Lista non trovata"), new RuntimeException("Non autorizzato"));
+            }
+            if (changed) {
+                eventIndex.eventsChanged(listId, userId, added, removed);
+                dashboards.listChanged(listId, List.of());
+            }
+            return results;
+        });
+        publicListCache.invalidate(listId);
+        return bulkResults;
+    }
+
+    private static List<Long> eventIdsWithStatus(List<FavoriteListEventsBulkResult> results,
+                                                 FavoriteListEventsBulkResult.Status status) {
+        return results.stream().filter(r -> r.getStatus() == status).map(FavoriteListEventsBulkResult::getEventId).toList();
+    }
+
+    private static Set<Long> distinctIds(Collection<Long> ids) {
+        Set<Long> distinct = new LinkedHashSet<>();
+        if (ids != null) {
+            ids.stream().filter(Objects::nonNull).forEach(distinct::add);
+        }
+        return distinct;
     }
 
     public void deleteList(UUID listId, Long userId) {
-        FavoriteList list = repository.findById(listId).orElseThrow();
-        if (!list.getOwnerId().equals(userId)) throw new RuntimeException("Unauthorized");
-        repository.delete(list);
+        writeTx.executeWithoutResult(status -> {
+            FavoriteList list = repository.findById(listId).orElseThrow();
+            if (!list.getOwnerId().equals(userId)) throw new RuntimeException("Unauthorized");
+            // la lista sparisce dalle dashboard dell'owner e dei destinatari
+            List<Long> previousUsers = new ArrayList<>(list.getSharedWith());
+            previousUsers.add(list.getOwnerId());
+            List<Long> eventIds = new ArrayList<>(list.getEventIds());
+            // stesso ordine dei lock delle altre scritture: lista, contatori degli eventi, dashboard
+            repository.delete(list);
+            repository.flush();
+            eventIndex.listDeleted(listId, userId, eventIds);
+            dashboards.listChanged(listId, previousUsers);
+        });
+        publicListCache.invalidate(listId);
     }
 
 
     public void updateSharedWith(UUID listId, Long ownerId, List<Long> sharedWith) {
+        updateSharedWith(listId, ownerId, sharedWith, null);
+    }
+
+    public void updateSharedWith(UUID listId, Long ownerId, List<Long> sharedWith, Long expectedVersion) {
         FavoriteList list = repository.findById(listId)
                 .orElseThrow(() -> new RuntimeException("FavoriteList not found"));
 
         if (!list.getOwnerId().equals(ownerId)) {
             throw new RuntimeException("Unauthorized");
         }
+        if (expectedVersion != null && !expectedVersion.equals(list.getVersion())) {
+            throw versionMismatch(expectedVersion);
+        }
 
-        for (Long userId : sharedWith) {
-            try {
+        try {
+            usersClient.validateUsersExist(sharedWith);
+        } catch (Exception e) {
+            throw new RuntimeException("Error checking user existence: " + e.getMessage());
+        }
+
+        // Scrittura in transazione, con la validazione remota già fatta fuori. Non è una rilettura: con OSIV findById
+        // restituisce la stessa entità letta sopra (contesto di persistenza della richiesta). Una modifica concorrente
+        // avvenuta nel frattempo la rileva il flush, che controlla la versione (update ... where version = ?)
+        try {
+            writeTx.executeWithoutResult(status -> {
+                FavoriteList current = repository.findById(listId)
+                        .orElseThrow(() -> new RuntimeException("FavoriteList not found"));
+                if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+                    throw versionMismatch(expectedVersion);
+                }
+                // i destinatari rimossi perdono la lista dalla loro dashboard
+                List<Long> previousUsers = new ArrayList<>(current.getSharedWith());
+                current.setSharedWith(sharedWith);
+                current.setSharedByUserId(ownerId);
+                repository.flush();
+                dashboards.listChanged(listId, previousUsers);
+            });
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw new ResponseStatusException(expectedVersion != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT,
+                    "La lista è stata modificata da un'altra richiesta");
+        }
+        publicListCache.invalidate(listId);
+    }
 
-                log.info("Verifica esistenza per userId={}", userId);
 
-                Boolean exists = userClient.get()
-                        .uri("/api/users/{id}/exists", userId)
-                        .retrieve()
-                        .bodyToMono(Boolean.class)
-                        .block();
 
-                log.info("Risultato per userId {}: {}", userId, exists);
+    public List<EventResponseDTO> getEventsByIdsWithAuth(Collection<Long> eventIds, String authHeader) {
+        return eventClient.getEventsByIds(eventIds, authHeader);
+    }
 
+    // Recupera gli eventi distinti con richieste a blocchi di eventsChunkSize id e li indicizza per id
+    public Map<Long, EventResponseDTO> getEventsByIdsBulk(Collection<Long> eventIds, String authHeader) {
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(eventIds));
+        Map<Long, EventResponseDTO> eventsById = new HashMap<>();
 
-                if (exists == null || !exists) {
-                    throw new RuntimeException("UserId " + userId + " does not exist");
-                }
-            } catch (Exception e) {
-                throw new RuntimeException("Error checking user existence for userId " + userId + ": " + e.getMessage());
+        for (int from = 0; from < distinctIds.size(); from += eventsChunkSize) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + eventsChunkSize, distinctIds.size()));
+            for (EventResponseDTO event : eventClient.getEventsByIds(chunk, authHeader)) {
+                eventsById.put(event.getId(), event);
             }
         }
 
-        list.setSharedWith(sharedWith);
-        list.setSharedByUserId(ownerId);
-        repository.save(list);
+        return eventsById;
     }
 
 
+    public List<FavoriteList> getAllPublicLists() {
+        return repository.findByVisibility(FavoriteList.Visibility.PUBLIC);
+    }
 
-    public List<EventResponseDTO> getEventsByIdsWithAuth(List<Long> eventIds, String authHeader) {
-        return eventClient.getEventsByIds(eventIds, authHeader);
+    // Una pagina di liste pubbliche ordinate per id, a partire dal cursore "after" (escluso)
+    public List<FavoriteList> getPublicListsPage(UUID after, int size) {
+        Limit limit = Limit.of(getPublicPageSize(size));
+        return recordListsSize("publicPage", after == null
+                ? repository.findByVisibilityOrderByIdAsc(FavoriteList.Visibility.PUBLIC, limit)
+                : repository.findByVisibilityAndIdGreaterThanOrderByIdAsc(FavoriteList.Visibility.PUBLIC, after, limit));
     }
 
+    public int getPublicPageSize(int requested) {
+        return Math.max(1, Math.min(requested, publicListsMaxPageSize));
+    }
 
-    public List<FavoriteList> getAllPublicLists() {
-        return repository.findByVisibility("PUBLIC");
+    // Scorre tutte le liste pubbliche una pagina alla volta: ogni pagina viene letta in una transazione breve
+    // e passata al consumer fuori dalla transazione, così un client lento non tiene aperta la connessione JDBC.
+    // Le entità di una pagina vengono rilasciate prima di leggere la successiva (heap costante).
+    public void forEachPublicListsPage(Consumer<List<FavoriteList>> consumer) {
+        UUID after = null;
+        while (true) {
+            UUID cursor = after;
+            List<FavoriteList> page = readOnlyTx.execute(status -> {
+                List<FavoriteList> lists = getPublicListsPage(cursor, publicListsMaxPageSize);
+                // collezioni lazy caricate qui: il consumer le legge a sessione chiusa
+                lists.forEach(list -> {
+                    Hibernate.initialize(list.getEventIds());
+                    Hibernate.initialize(list.getSharedWith());
+                });
+                return lists;
+            });
+
+            if (page == null || page.isEmpty()) return;
+            consumer.accept(page);
+
+            if (page.size() < publicListsMaxPageSize) return;
+            after = page.get(page.size() - 1).getId();
+        }
     }
 
     public List<FavoriteList> getSharedWithMe(Long userId) {
-        return repository.findBySharedWithContains(userId);
+        return recordListsSize("sharedWithMe", repository.findBySharedWithContains(userId));
     }
 
+    // Istogramma del numero di liste restituite per richiesta, per operazione
+    private <T> List<T> recordListsSize(String operation, List<T> lists) {
+        listsSizeByOperation.computeIfAbsent(operation, op -> DistributionSummary.builder("favorites.lists.size")
+                        .baseUnit("lists")
+                        .tag("operation", op)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry))
+                .record(lists.size());
+        return lists;
+    }
 
-    // il metodo che hai già scritto
 
+    // GET /lists con provision-on-read: una sola query se l'utente ha già delle liste; al primo accesso crea le liste di default
+    public List<FavoriteList> getOrCreateMyLists(Long userId) {
+        List<FavoriteList> lists = getMyLists(userId);
+        if (!lists.isEmpty()) return lists;
 
+        createDefaultListsForUser(userId);
+        return getMyLists(userId);
+    }
 
+    // Liste di default (privata, condivisa, pubblica) con un solo INSERT. Le richieste concorrenti dello
+    // stesso utente (primo accesso dalla SPA) aspettano la creazione già in corso; tra istanze diverse
+    // i duplicati sono esclusi dall'indice unico (owner_id, default_kind).
     public void createDefaultListsForUser(Long userId) {
-        // Controlla se l’utente ha già delle liste
-        List<FavoriteList> existing = repository.findByOwnerId(userId);
-        if (!existing.isEmpty()) return;
-
-        // Recupera il nome dell'utente tramite il metodo esistente
-;
-
-        // Crea liste di default con il nome dell’utente
-        List<FavoriteList> defaultLists = List.of(
-                buildList("Preferiti Privati " ,FavoriteList.Visibility.PRIVATE, userId),
-                buildList("Preferiti Condivisi", FavoriteList.Visibility.SHARED, userId),
-                buildList("Preferiti Pubblici", FavoriteList.Visibility.PUBLIC, userId)
-        );
+        CompletableFuture<Void> creation = new CompletableFuture<>();
+        CompletableFuture<Void> inFlight = defaultListsInFlight.putIfAbsent(userId, creation);
+        if (inFlight != null) {
+            try {
+                inFlight.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) throw cause;
+                throw e;
+            }
+            return;
+        }
 
-        repository.saveAll(defaultLists);
+        try {
+            int created = repository.insertDefaultLists(userId,
+                    UUID.randomUUID(), UUID.randomUUID().toString(),
+                    UUID.randomUUID(), UUID.randomUUID().toString(),
+                    UUID.randomUUID(), UUID.randomUUID().toString());
+            log.debug("Liste di default create per l'utente {}: {}", userId, created);
+            if (created > 0) dashboards.invalidate(List.of(userId));
+            creation.complete(null);
+        } catch (RuntimeException e) {
+            creation.completeExceptionally(e);
+            throw e;
+        } finally {
+            defaultListsInFlight.remove(userId, creation);
+        }
     }
 
 
     public List<FavoriteListWithOwnerDTO> getMyListsWithOwner(Long userId) {
         // Recupera tutte le liste dell'utente
-        List<FavoriteList> lists = repository.findByOwnerId(userId);
+        List<FavoriteList> lists = recordListsSize("mineWithOwner", repository.findByOwnerId(userId));
+
+        // Nomi di owner e sharedBy risolti una volta sola, in parallelo (vedi UserClient.getUserNames)
+        List<Long> userIds = new ArrayList<>();
+        lists.forEach(list -> {
+            userIds.add(list.getOwnerId());
+            userIds.add(list.getSharedByUserId());
+        });
+        Map<Long, String> names = getUserNamesByIds(userIds);
 
         // Mappa ogni lista in un DTO con nome reale
         return lists.stream().map(list -> {
@@ -234,14 +575,14 @@ public class FavoriteListService {
             // Imposta owner
             UsersAccountsDTO owner = new UsersAccountsDTO();
             owner.setId(list.getOwnerId());
-            owner.setName(getUserNameById(list.getOwnerId()));  // qui prende il nome reale
+            owner.setName(names.get(list.getOwnerId()));  // qui prende il nome reale
             dto.setOwner(owner);
 
             // Imposta sharedBy se esiste
             if (list.getSharedByUserId() != null) {
                 UsersAccountsDTO sharedBy = new UsersAccountsDTO();
                 sharedBy.setId(list.getSharedByUserId());
-                sharedBy.setName(getUserNameById(list.getSharedByUserId()));
+                sharedBy.setName(names.get(list.getSharedByUserId()));
                 dto.setSharedBy(sharedBy);
             }
 
@@ -251,14 +592,6 @@ public class FavoriteListService {
 
 
 
-    private FavoriteList buildList(String name, FavoriteList.Visibility visibility, Long ownerId) {
-        FavoriteList list = new FavoriteList();
-        list.setName(name);
-        list.setVisibility(visibility);
-        list.setOwnerId(ownerId);
-        list.setCapabilityToken(UUID.randomUUID().toString()); // utile se vuoi link pubblici
-        return list;
-    }
 
 
 
@@ -266,35 +599,14 @@ public class FavoriteListService {
 
 
     public String getUserNameById(Long userId) {
-        try {
-            log.info("Calling UserService for id {}", userId);
-
-            // Chiamata al microservizio utenti
-
-
-            String response = userClient.get()
-                    .uri("/api/users/{id}/username", userId)
-                    .exchangeToMono(clientResponse -> {
-                        log.info("Status code: {}", clientResponse.statusCode());
-                        return clientResponse.bodyToMono(String.class);
-                    })
-                    .block();
-
-
-            log.info("Response from UserService: '{}'", response);
+        // Passa dalla cache dei nomi: una sola chiamata a userService per id finché la voce è valida
+        return usersClient.getUserName(userId).block();
+    }
 
-            // Controllo se la risposta è nulla o vuota
-            if (response == null || response.isEmpty()) {
-                log.warn("Nome utente non trovato per id: {}", userId);
-                return "Unknown";
-            }
 
-            return response;
 
-        } catch (Exception e) {
-            log.error("Errore recupero nome utente per id: {}", userId, e);
-            return "Unknown";
-        }
+    public Map<Long, String> getUserNamesByIds(Collection<Long> userIds) {
+        return usersClient.getUserNames(userIds);
     }
 
 
@@ -303,20 +615,8 @@ public class FavoriteListService {
         FavoriteList list = repository.findById(listId)
                 .orElseThrow(() -> new RuntimeException("FavoriteList not found"));
 
-        FavoriteListWithOwnerDTO dto = new FavoriteListWithOwnerDTO();
-        dto.setFavoriteList(list);
-
-        UsersAccountsDTO owner = new UsersAccountsDTO();
-        owner.setName(getUserNameById(list.getOwnerId()));
-        dto.setOwner(owner);
-
-        if (list.getSharedByUserId() != null) {
-            UsersAccountsDTO sharedBy = new UsersAccountsDTO();
-            sharedBy.setName(getUserNameById(list.getSharedByUserId()));
-            dto.setSharedBy(sharedBy);
-        }
-
-        return dto;
+        // owner e sharedBy in parallelo, ognuno con il proprio timeout
+        return detailsService.getWithOwnerBlocking(list).toWithOwner();
     }
 
 
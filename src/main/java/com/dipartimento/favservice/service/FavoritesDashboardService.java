@@ -0,0 +1,220 @@
+package com.dipartimento.favservice.service;
+
+import com.dipartimento.favservice.config.UserClient;
+import com.dipartimento.favservice.domain.FavoriteList;
+import com.dipartimento.favservice.dto.FavoritesDashboard;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Read model per utente (tabella favorite_user_dashboards): la schermata principale è una sola lettura per chiave
+// primaria, indipendentemente da quante liste l'utente possiede o riceve in condivisione.
+// Ogni modifica di una lista aggiorna solo le voci di quella lista nei documenti di owner e destinatari (listChanged);
+// un documento assente o invalidato viene ricostruito dalle tabelle alla lettura successiva.
+@Service
+public class FavoritesDashboardService {
+
+    private static final Logger log = LoggerFactory.getLogger(FavoritesDashboardService.class);
+
+    private static final String SELECT_LISTS =
+            "select f.id, f.owner_id, f.name, f.shared_by_user_id, f.visibility, f.capability_token, f.version " +
+            "from favorite_lists f where ";
+
+    private static final Comparator<FavoritesDashboard.ListEntry> BY_ID = Comparator.comparing(FavoritesDashboard.ListEntry::getId);
+
+    private record Row(long version, String content) {
+    }
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate writeTx;
+    private final ObjectMapper objectMapper;
+    private final UserClient usersClient;
+
+    public FavoritesDashboardService(NamedParameterJdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     ObjectMapper objectMapper,
+                                     UserClient usersClient) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.writeTx = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.usersClient = usersClient;
+    }
+
+    public FavoritesDashboard getDashboard(Long userId) {
+        List<Row> rows = jdbcTemplate.query("select version, content from favorite_user_dashboards where user_id = :userId",
+                Map.of("userId", userId), (rs, rowNum) -> new Row(rs.getLong("version"), rs.getString("content")));
+
+        FavoritesDashboard dashboard = rows.isEmpty() || rows.get(0).content() == null
+                ? writeTx.execute(status -> rebuild(userId))
+                : read(userId, rows.get(0));
+        return withUserNames(dashboard);
+    }
+
+    // Da chiamare nella transazione che ha modificato (o eliminato) la lista, dopo la scrittura.
+    // previousUsers: owner e destinatari prima della modifica, se possono essere cambiati (condivisione, eliminazione).
+    public void listChanged(UUID listId, Collection<Long> previousUsers) {
+        FavoritesDashboard.ListEntry list = loadLists("f.id = :listId", Map.of("listId", listId)).stream()
+                .findFirst().orElse(null);
+
+        // ordine crescente: transazioni concorrenti bloccano i documenti sempre nello stesso ordine
+        Set<Long> users = new TreeSet<>(previousUsers);
+        if (list != null) {
+            users.add(list.getOwnerId());
+            users.addAll(list.getSharedWith());
+        }
+
+        for (Long userId : users) {
+            Row row = lock(userId);
+            if (row.content() == null) continue;
+
+            FavoritesDashboard dashboard = read(userId, row);
+            dashboard.getOwned().removeIf(entry -> entry.getId().equals(listId));
+            dashboard.getSharedWithMe().removeIf(entry -> entry.getId().equals(listId));
+            if (list != null && userId.equals(list.getOwnerId())) {
+                insertSorted(dashboard.getOwned(), list);
+            }
+            if (list != null && list.getSharedWith().contains(userId)) {
+                insertSorted(dashboard.getSharedWithMe(), list);
+            }
+            write(userId, row.version() + 1, dashboard);
+        }
+    }
+
+    // Modifiche in blocco (es. liste di default): i documenti vengono ricostruiti alla lettura successiva
+    public void invalidate(Collection<Long> userIds) {
+        if (userIds.isEmpty()) return;
+        jdbcTemplate.update("update favorite_user_dashboards set content = null, version = version + 1 where user_id in (:userIds)",
+                Map.of("userIds", userIds));
+    }
+
+    // Con il documento bloccato: una ricostruzione concorrente a una modifica legge le tabelle dopo il suo commit
+    private FavoritesDashboard rebuild(Long userId) {
+        Row row = lock(userId);
+        if (row.content() != null) return read(userId, row);
+
+        FavoritesDashboard dashboard = new FavoritesDashboard();
+        dashboard.setOwned(loadLists("f.owner_id = :userId", Map.of("userId", userId)));
+        dashboard.setSharedWithMe(loadLists(
+                "exists (select 1 from favorite_list_shares s where s.favorite_list_id = f.id and s.user_id = :userId)",
+                Map.of("userId", userId)));
+        log.debug("Dashboard ricostruita per l'utente {}: {} liste proprie, {} condivise",
+                userId, dashboard.getOwned().size(), dashboard.getSharedWithMe().size());
+        return write(userId, row.version() + 1, dashboard);
+    }
+
+    // Nomi di owner e sharedBy risolti a ogni lettura dalla cache di UserClient (services.user.name-cache.ttl) e mai
+    // salvati nel documento: un utente rinominato compare col nuovo nome alla scadenza della cache e restano
+    // solo i nomi degli utenti ancora presenti nelle liste
+    private FavoritesDashboard withUserNames(FavoritesDashboard dashboard) {
+        Set<Long> userIds = new LinkedHashSet<>();
+        for (FavoritesDashboard.ListEntry list : allLists(dashboard)) {
+            userIds.add(list.getOwnerId());
+            if (list.getSharedByUserId() != null) userIds.add(list.getSharedByUserId());
+        }
+        dashboard.setUserNames(userIds.isEmpty() ? new HashMap<>() : new HashMap<>(usersClient.getUserNames(userIds)));
+        return dashboard;
+    }
+
+    // SELECT ... FOR UPDATE del documento, creato vuoto (content null) se non esiste ancora
+    private Row lock(Long userId) {
+        Map<String, Long> params = Map.of("userId", userId);
+        String select = "select version, content from favorite_user_dashboards where user_id = :userId for update";
+        List<Row> rows = jdbcTemplate.query(select, params, (rs, rowNum) -> new Row(rs.getLong("version"), rs.getString("content")));
+        if (rows.isEmpty()) {
+            jdbcTemplate.update("insert into favorite_user_dashboards (user_id, version, content) values (:userId, 0, null) " +
+                    "on conflict do nothing", params);
+            rows = jdbcTemplate.query(select, params, (rs, rowNum) -> new Row(rs.getLong("version"), rs.getString("content")));
+        }
+        return rows.get(0);
+    }
+
+    private FavoritesDashboard write(Long userId, long version, FavoritesDashboard dashboard) {
+        dashboard.setUserId(userId);
+        dashboard.setVersion(version);
+        // i nomi non fanno parte del documento (vedi withUserNames); quelli salvati in passato vengono rimossi qui
+        dashboard.setUserNames(new HashMap<>());
+        jdbcTemplate.update("update favorite_user_dashboards set version = :version, content = :content where user_id = :userId",
+                Map.of("version", version, "content", toJson(dashboard), "userId", userId));
+        return dashboard;
+    }
+
+    // Liste con eventi e destinatari: una query per le liste e una per ciascuna collezione
+    private List<FavoritesDashboard.ListEntry> loadLists(String condition, Map<String, ?> params) {
+        List<FavoritesDashboard.ListEntry> lists = jdbcTemplate.query(SELECT_LISTS + condition, params, (rs, rowNum) -> {
+            FavoritesDashboard.ListEntry list = new FavoritesDashboard.ListEntry();
+            list.setId(rs.getObject("id", UUID.class));
+            list.setOwnerId(rs.getObject("owner_id", Long.class));
+            list.setName(rs.getString("name"));
+            list.setSharedByUserId(rs.getObject("shared_by_user_id", Long.class));
+            String visibility = rs.getString("visibility");
+            list.setVisibility(visibility == null ? null : FavoriteList.Visibility.valueOf(visibility));
+            list.setCapabilityToken(rs.getString("capability_token"));
+            list.setVersion(rs.getObject("version", Long.class));
+            return list;
+        });
+        if (lists.isEmpty()) return lists;
+
+        Map<UUID, FavoritesDashboard.ListEntry> byId = lists.stream()
+                .collect(Collectors.toMap(FavoritesDashboard.ListEntry::getId, Function.identity()));
+        Map<String, Object> ids = Map.of("ids", byId.keySet());
+        jdbcTemplate.query("select favorite_list_id, event_id from favorite_list_events where favorite_list_id in (:ids) " +
+                        "order by event_id", ids,
+                rs -> { byId.get(rs.getObject("favorite_list_id", UUID.class)).getEventIds().add(rs.getLong("event_id")); });
+        jdbcTemplate.query("select favorite_list_id, user_id from favorite_list_shares where favorite_list_id in (:ids) " +
+                        "order by user_id", ids,
+                rs -> { byId.get(rs.getObject("favorite_list_id", UUID.class)).getSharedWith().add(rs.getLong("user_id")); });
+
+        List<FavoritesDashboard.ListEntry> sorted = new ArrayList<>(lists);
+        sorted.sort(BY_ID);
+        return sorted;
+    }
+
+    private static void insertSorted(List<FavoritesDashboard.ListEntry> lists, FavoritesDashboard.ListEntry list) {
+        lists.add(list);
+        lists.sort(BY_ID);
+    }
+
+    private static List<FavoritesDashboard.ListEntry> allLists(FavoritesDashboard dashboard) {
+        List<FavoritesDashboard.ListEntry> lists = new ArrayList<>(dashboard.getOwned());
+        lists.addAll(dashboard.getSharedWithMe());
+        return lists;
+    }
+
+    private FavoritesDashboard read(Long userId, Row row) {
+        try {
+            FavoritesDashboard dashboard = objectMapper.readValue(row.content(), FavoritesDashboard.class);
+            dashboard.setUserId(userId);
+            dashboard.setVersion(row.version());
+            if (dashboard.getUserNames() == null) dashboard.setUserNames(new HashMap<>());
+            return dashboard;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Dashboard non leggibile per l'utente " + userId, e);
+        }
+    }
+
+    private String toJson(FavoritesDashboard dashboard) {
+        try {
+            return objectMapper.writeValueAsString(dashboard);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Serializzazione non riuscita", e);
+        }
+    }
+}
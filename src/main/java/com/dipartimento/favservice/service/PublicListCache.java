@@ -0,0 +1,140 @@
+package com.dipartimento.favservice.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+// Risposte già serializzate dei link pubblici (/public/{token} e /public/{token}/with-events), per token.
+// Richieste concorrenti sullo stesso token aspettano la stessa lettura dal DB / chiamata a eventService;
+// la lettura gira sul thread del primo chiamante, fuori dal lock della cache. Le voci sono invalidate
+// per lista a ogni modifica, anche quelle ancora in caricamento (vedi generation).
+@Component
+public class PublicListCache {
+
+    public record CachedResponse(UUID listId, String etag, byte[] json) {
+    }
+
+    private final AsyncCache<String, CachedResponse> lists;
+    private final AsyncCache<String, CachedResponse> listsWithEvents;
+
+    // listId -> token, per invalidare dalle scritture che conoscono solo l'id della lista
+    private final Map<UUID, String> tokensByList = new ConcurrentHashMap<>();
+
+    // Un caricamento conosce l'id della lista solo dopo la lettura: se nel frattempo la lista è stata invalidata
+    // (generazione dell'invalidazione successiva all'inizio del caricamento) la risposta viene restituita
+    // al chiamante ma non resta in cache. Le generazioni servono solo finché un caricamento può essere in corso.
+    private final AtomicLong generation = new AtomicLong();
+    private final Cache<UUID, Long> invalidatedAt;
+    private volatile long allWithEventsInvalidatedAt;
+
+    public PublicListCache(@Value("${favorites.public-cache.max-size:10000}") long maxSize,
+                           @Value("${favorites.public-cache.ttl:10m}") Duration ttl,
+                           @Value("${favorites.public-cache.with-events-ttl:1m}") Duration withEventsTtl,
+                           MeterRegistry meterRegistry) {
+        this.lists = build(maxSize, ttl);
+        this.listsWithEvents = build(maxSize, withEventsTtl);
+        this.invalidatedAt = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl.compareTo(withEventsTtl) > 0 ? ttl : withEventsTtl)
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, lists, "publicLists");
+        CaffeineCacheMetrics.monitor(meterRegistry, listsWithEvents, "publicListsWithEvents");
+    }
+
+    // loader restituisce null se il token non corrisponde a una lista pubblica (risultato non memorizzato)
+    public Optional<CachedResponse> getList(String token, Function<String, CachedResponse> loader) {
+        return get(lists, token, loader);
+    }
+
+    public Optional<CachedResponse> getListWithEvents(String token, Function<String, CachedResponse> loader) {
+        return get(listsWithEvents, token, loader);
+    }
+
+    public void invalidate(UUID listId) {
+        // prima la generazione, poi il token: un caricamento concorrente vede l'una o ha già registrato l'altro
+        invalidatedAt.put(listId, generation.incrementAndGet());
+        String token = tokensByList.remove(listId);
+        if (token != null) {
+            lists.synchronous().invalidate(token);
+            listsWithEvents.synchronous().invalidate(token);
+        }
+    }
+
+    // I dettagli degli eventi sono cambiati (invalidazione della cache eventi)
+    public void invalidateAllWithEvents() {
+        allWithEventsInvalidatedAt = generation.incrementAndGet();
+        listsWithEvents.synchronous().invalidateAll();
+    }
+
+    private Optional<CachedResponse> get(AsyncCache<String, CachedResponse> cache, String token,
+                                         Function<String, CachedResponse> loader) {
+        CompletableFuture<CachedResponse> loading = new CompletableFuture<>();
+        CompletableFuture<CachedResponse> future = cache.get(token, (t, executor) -> loading);
+        if (future != loading) return Optional.ofNullable(join(future));
+
+        long startedAt = generation.get();
+        CachedResponse response;
+        try {
+            response = loader.apply(token);
+        } catch (RuntimeException e) {
+            // future in errore: rimossa dalla cache, chi la aspetta riceve la stessa eccezione
+            loading.completeExceptionally(e);
+            throw e;
+        }
+        // null: nessuna voce in cache
+        loading.complete(response);
+
+        if (response != null) {
+            tokensByList.put(response.listId(), token);
+            if (invalidatedSince(response.listId(), startedAt, cache == listsWithEvents)) {
+                cache.asMap().remove(token, loading);
+            }
+        }
+        return Optional.ofNullable(response);
+    }
+
+    private boolean invalidatedSince(UUID listId, long startedAt, boolean withEvents) {
+        Long invalidated = invalidatedAt.getIfPresent(listId);
+        return (invalidated != null && invalidated > startedAt) || (withEvents && allWithEventsInvalidatedAt > startedAt);
+    }
+
+    private static CachedResponse join(CompletableFuture<CachedResponse> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    private AsyncCache<String, CachedResponse> build(long maxSize, Duration ttl) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .removalListener((String token, CachedResponse response, RemovalCause cause) -> {
+                    // scadenza / dimensione: l'indice non serve più se il token non è in nessuna delle due cache
+                    if (response != null && cause.wasEvicted()
+                            && !lists.asMap().containsKey(token) && !listsWithEvents.asMap().containsKey(token)) {
+                        tokensByList.remove(response.listId(), token);
+                    }
+                })
+                .buildAsync();
+    }
+}
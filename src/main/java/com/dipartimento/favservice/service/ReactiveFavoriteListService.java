@@ -0,0 +1,143 @@
+package com.dipartimento.favservice.service;
+
+import com.dipartimento.favservice.config.EventClient;
+import com.dipartimento.favservice.config.UserClient;
+import com.dipartimento.favservice.domain.FavoriteList;
+import com.dipartimento.favservice.dto.EventMapper;
+import com.dipartimento.favservice.dto.EventResponseDTO;
+import com.dipartimento.favservice.dto.FavoriteListDetails;
+import com.dipartimento.favservice.dto.FavoriteListWithEventDetailsDTO;
+import com.dipartimento.favservice.dto.FavoriteListWithOwnerDTO;
+import com.dipartimento.favservice.repository.FavoriteListRepository;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+// Variante non bloccante delle composizioni lista + eventi / lista + owner usata da /api/v2/favorites.
+// Le query JPA girano sul jpaScheduler, le chiamate a userService ed eventService restano reattive.
+@Service
+public class ReactiveFavoriteListService {
+
+    private final FavoriteListService service;
+    private final FavoriteListRepository repository;
+    private final EventClient eventClient;
+    private final UserClient userClient;
+    private final FavoriteListDetailsService detailsService;
+    private final Scheduler jpaScheduler;
+    private final TransactionTemplate readOnlyTx;
+    private final int eventsChunkSize;
+
+    public ReactiveFavoriteListService(FavoriteListService service,
+                                       FavoriteListRepository repository,
+                                       EventClient eventClient,
+                                       UserClient userClient,
+                                       FavoriteListDetailsService detailsService,
+                                       @Qualifier("jpaScheduler") Scheduler jpaScheduler,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${services.event.by-ids-chunk-size:200}") int eventsChunkSize) {
+        this.service = service;
+        this.repository = repository;
+        this.eventClient = eventClient;
+        this.userClient = userClient;
+        this.detailsService = detailsService;
+        this.jpaScheduler = jpaScheduler;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.eventsChunkSize = eventsChunkSize;
+    }
+
+    public Mono<FavoriteList> getById(UUID id, Long requesterId) {
+        return jpa(() -> service.getById(id, requesterId).map(this::initialized).orElse(null));
+    }
+
+    public Flux<FavoriteList> getSharedWithMe(Long userId) {
+        return jpa(() -> initialized(repository.findBySharedWithContains(userId)))
+                .flatMapIterable(lists -> lists);
+    }
+
+    // Stesso payload di /api/favorites/lists/{id}/with-events: lista, eventi e parti mancanti
+    public Mono<Map<String, Object>> getListWithEvents(UUID id, Long userId, String authHeader) {
+        return getById(id, userId)
+                .flatMap(list -> detailsService.getWithEvents(list, authHeader))
+                .map(FavoriteListDetails::toWithEvents);
+    }
+
+    public Mono<FavoriteListWithOwnerDTO> getListWithOwner(UUID id) {
+        return jpa(() -> repository.findById(id).map(this::initialized).orElse(null))
+                .switchIfEmpty(Mono.error(new RuntimeException("FavoriteList not found")))
+                .flatMap(list -> detailsService.getWithOwner(list))
+                .map(FavoriteListDetails::toWithOwner);
+    }
+
+    public Flux<FavoriteListWithOwnerDTO> getMyListsWithOwner(Long userId) {
+        return jpa(() -> initialized(repository.findByOwnerId(userId)))
+                .flatMapIterable(lists -> lists)
+                .flatMapSequential(list -> detailsService.getWithOwner(list))
+                .map(FavoriteListDetails::toWithOwner);
+    }
+
+    public Flux<FavoriteListWithEventDetailsDTO> getSharedWithMeWithEvents(Long userId, String authHeader) {
+        return getSharedWithMe(userId)
+                .collectList()
+                .flatMapMany(lists -> {
+                    Set<Long> allEventIds = new LinkedHashSet<>();
+                    lists.forEach(list -> allEventIds.addAll(list.getEventIds()));
+
+                    return getEventsByIds(allEventIds, authHeader)
+                            .flatMapMany(eventsById -> Flux.fromIterable(lists)
+                                    .flatMapSequential(list -> userClient.getUserName(list.getOwnerId())
+                                            .map(ownerUsername -> {
+                                                FavoriteListWithEventDetailsDTO dto = new FavoriteListWithEventDetailsDTO();
+                                                dto.setFavoriteList(list);
+                                                dto.setEvents(list.getEventIds().stream()
+                                                        .map(eventsById::get)
+                                                        .filter(Objects::nonNull)
+                                                        .map(EventMapper::toEventDTO)
+                                                        .toList());
+                                                dto.setOwnerUsername(ownerUsername);
+                                                return dto;
+                                            })));
+                });
+    }
+
+    // Richieste a blocchi in parallelo per gli id distinti, indicizzate per id evento
+    private Mono<Map<Long, EventResponseDTO>> getEventsByIds(Set<Long> eventIds, String authHeader) {
+        return Flux.fromIterable(eventIds)
+                .buffer(eventsChunkSize)
+                .flatMap(chunk -> eventClient.getEventsByIdsAsync(chunk, authHeader))
+                .flatMapIterable(events -> events)
+                .collectMap(EventResponseDTO::getId);
+    }
+
+    // Esegue la query in una transazione read-only sullo scheduler JPA
+    private <T> Mono<T> jpa(Supplier<T> query) {
+        return Mono.fromCallable(() -> readOnlyTx.execute(status -> query.get()))
+                .subscribeOn(jpaScheduler);
+    }
+
+    // Le collezioni lazy vanno caricate prima di uscire dalla transazione
+    private FavoriteList initialized(FavoriteList list) {
+        Hibernate.initialize(list.getEventIds());
+        Hibernate.initialize(list.getSharedWith());
+        return list;
+    }
+
+    private List<FavoriteList> initialized(List<FavoriteList> lists) {
+        lists.forEach(this::initialized);
+        return lists;
+    }
+}
@@ -0,0 +1,45 @@
+package com.dipartimento.favservice.util;
+
+import com.dipartimento.favservice.domain.FavoriteList;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// ETag forti calcolati dalla versione delle liste: non serve serializzare la risposta per confrontarli
+public final class ETagUtil {
+
+    private static final Pattern VERSION_TAG = Pattern.compile("\"(\\d+)\"");
+
+    private ETagUtil() {
+    }
+
+    public static String of(FavoriteList list) {
+        return "\"" + list.getVersion() + "\"";
+    }
+
+    // Cambia se una lista viene aggiunta, rimossa o modificata
+    public static String of(List<FavoriteList> lists) {
+        StringBuilder key = new StringBuilder();
+        for (FavoriteList list : lists) {
+            key.append(list.getId()).append(':').append(list.getVersion()).append(';');
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(key.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    // Versione attesa da un header If-Match (null se assente o "*"); un ETag non valido non può corrispondere
+    public static Long versionFromIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Matcher matcher = VERSION_TAG.matcher(ifMatch.trim());
+        if (!matcher.matches()) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "If-Match non valido: " + ifMatch);
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+}
@@ -1,10 +1,23 @@
 package com.dipartimento.favservice.util;
 
+import com.dipartimento.favservice.security.JwtPrincipal;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 
 @Component
@@ -15,48 +28,101 @@ public class JwtUtil {
 
     private static final Key key = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
 
+    // Il parser è immutabile e thread-safe: non serve ricrearlo a ogni chiamata
+    private static final JwtParser parser = Jwts.parserBuilder().setSigningKey(key).build();
+
+    // Token già verificati, per hash SHA-256: la firma HMAC viene controllata una volta sola.
+    // Una voce non sopravvive mai alla scadenza del token. Dimensione e durata da security.jwt.verified-cache.*
+    // Cache del bean: solo parse / authenticate la usano, gli helper statici verificano sempre il token.
+    private final Cache<String, JwtPrincipal> verifiedTokens;
+
+    public JwtUtil(@Value("${security.jwt.verified-cache.max-size:10000}") long verifiedCacheMaxSize,
+                   @Value("${security.jwt.verified-cache.ttl:5m}") Duration verifiedCacheTtl) {
+        this.verifiedTokens = verifiedTokensCache(verifiedCacheMaxSize, verifiedCacheTtl);
+    }
+
+    private static Cache<String, JwtPrincipal> verifiedTokensCache(long maxSize, Duration ttl) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, JwtPrincipal>() {
+                    @Override
+                    public long expireAfterCreate(String hash, JwtPrincipal principal, long currentTime) {
+                        Duration untilExpiry = principal.expiresAt() == null
+                                ? ttl
+                                : Duration.between(Instant.now(), principal.expiresAt());
+                        return Math.max(0, Math.min(untilExpiry.toNanos(), ttl.toNanos()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String hash, JwtPrincipal principal, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String hash, JwtPrincipal principal, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
     public static String generateToken(Long userId, String username, String role) {
+        return generateToken(userId, username, role, Duration.ofMillis(EXPIRATION_TIME));
+    }
+
+    public static String generateToken(Long userId, String username, String role, Duration validity) {
         return Jwts.builder()
                 .setSubject(username)
                 .claim("userId", userId)
                 .claim("role", role)
                 .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
+                .setExpiration(new Date(System.currentTimeMillis() + validity.toMillis()))
                 .signWith(key, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    // Verifica il token (o lo ritrova tra quelli già verificati) e ne restituisce i claims.
+    // Lancia JwtException / IllegalArgumentException se il token non è valido.
+    public JwtPrincipal parse(String token) {
+        token = stripBearer(token);
+        String hash = hash(token);
+
+        JwtPrincipal cached = verifiedTokens.getIfPresent(hash);
+        if (cached != null) return cached;
+
+        JwtPrincipal principal = verify(token);
+        verifiedTokens.put(hash, principal);
+        return principal;
+    }
+
+    // null se il token non è valido
+    public JwtPrincipal authenticate(String token) {
+        try {
+            return parse(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     public static String extractUsername(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return verify(stripBearer(token)).username();
     }
 
 
     public static Long extractUserId(String token) {
-        // Rimuovi il prefisso "Bearer " se presente e fai trim per sicurezza
-        if (token.startsWith("Bearer ")) {
-            token = token.substring(7).trim();
-        } else {
-            token = token.trim();
+        // Se il filtro ha già autenticato la richiesta uso il principal del SecurityContext
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof JwtPrincipal principal) {
+            return principal.userId();
         }
 
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
-        return claims.get("userId", Long.class);
+        return verify(stripBearer(token)).userId();
     }
 
 
     public static boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
+            verify(stripBearer(token));
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             return false;
@@ -64,12 +130,35 @@ public class JwtUtil {
     }
 
     public static String extractUserRole(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.get("role", String.class);
+        return verify(stripBearer(token)).role();
+    }
+
+    // Verifica completa (firma e scadenza), senza cache
+    private static JwtPrincipal verify(String token) {
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        Date expiration = claims.getExpiration();
+        return new JwtPrincipal(
+                claims.get("userId", Long.class),
+                claims.getSubject(),
+                claims.get("role", String.class),
+                expiration != null ? expiration.toInstant() : null);
+    }
+
+    private static String stripBearer(String token) {
+        // Rimuovi il prefisso "Bearer " se presente e fai trim per sicurezza
+        if (token.startsWith("Bearer ")) {
+            return token.substring(7).trim();
+        }
+        return token.trim();
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
 }
@@ -0,0 +1,28 @@
+-- Schema iniziale, identico a quello generato finora da ddl-auto=update.
+-- Sui database esistenti questa versione viene saltata (spring.flyway.baseline-on-migrate).
+
+create table favorite_lists (
+    id                uuid not null,
+    owner_id          bigint,
+    shared_by_user_id bigint,
+    capability_token  varchar(255),
+    name              varchar(255),
+    visibility        varchar(255) check (visibility in ('PRIVATE', 'SHARED', 'PUBLIC')),
+    primary key (id)
+);
+
+create table favorite_list_event_ids (
+    favorite_list_id uuid not null,
+    event_ids        bigint
+);
+
+create table favorite_list_shared_with (
+    favorite_list_id uuid not null,
+    shared_with      bigint
+);
+
+alter table favorite_list_event_ids
+    add constraint fk_favorite_list_event_ids_list foreign key (favorite_list_id) references favorite_lists;
+
+alter table favorite_list_shared_with
+    add constraint fk_favorite_list_shared_with_list foreign key (favorite_list_id) references favorite_lists;
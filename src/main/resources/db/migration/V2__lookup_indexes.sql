@@ -0,0 +1,15 @@
+-- Link pubblici anonimi: findByCapabilityToken
+create unique index ux_favorite_lists_capability_token on favorite_lists (capability_token);
+
+-- GET /lists, /my/{userId}: findByOwnerId
+create index ix_favorite_lists_owner_id on favorite_lists (owner_id);
+
+-- GET /lists/public: findByVisibility (ordinato per id)
+create index ix_favorite_lists_visibility_id on favorite_lists (visibility, id);
+
+-- shared-with-me: findBySharedWithContains parte dall'utente e risale alla lista
+create index ix_favorite_list_shared_with_user_list on favorite_list_shared_with (shared_with, favorite_list_id);
+
+-- caricamento (subselect) delle collezioni per lista
+create index ix_favorite_list_shared_with_list on favorite_list_shared_with (favorite_list_id);
+create index ix_favorite_list_event_ids_list on favorite_list_event_ids (favorite_list_id);
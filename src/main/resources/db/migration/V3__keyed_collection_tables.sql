@@ -0,0 +1,30 @@
+-- eventIds e sharedWith diventano insiemi con chiave primaria (lista, elemento):
+-- aggiungere o togliere un elemento è una sola INSERT / DELETE invece di riscrivere tutta la collezione.
+-- I duplicati eventualmente presenti nelle vecchie tabelle vengono eliminati nella copia.
+
+create table favorite_list_events (
+    favorite_list_id uuid   not null,
+    event_id         bigint not null,
+    primary key (favorite_list_id, event_id),
+    constraint fk_favorite_list_events_list foreign key (favorite_list_id) references favorite_lists on delete cascade
+);
+
+insert into favorite_list_events (favorite_list_id, event_id)
+select distinct favorite_list_id, event_ids from favorite_list_event_ids where event_ids is not null;
+
+drop table favorite_list_event_ids;
+
+create table favorite_list_shares (
+    favorite_list_id uuid   not null,
+    user_id          bigint not null,
+    primary key (favorite_list_id, user_id),
+    constraint fk_favorite_list_shares_list foreign key (favorite_list_id) references favorite_lists on delete cascade
+);
+
+insert into favorite_list_shares (favorite_list_id, user_id)
+select distinct favorite_list_id, shared_with from favorite_list_shared_with where shared_with is not null;
+
+drop table favorite_list_shared_with;
+
+-- shared-with-me: dall'utente alla lista
+create index ix_favorite_list_shares_user_list on favorite_list_shares (user_id, favorite_list_id);
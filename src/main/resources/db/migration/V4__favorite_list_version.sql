@@ -0,0 +1,2 @@
+-- Versione per il locking ottimistico e per gli ETag delle letture
+alter table favorite_lists add column version bigint not null default 0;
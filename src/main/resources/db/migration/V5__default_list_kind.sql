@@ -0,0 +1,4 @@
+-- Liste di default create al primo accesso (GET /lists): al massimo una per tipo e per utente,
+-- anche con richieste concorrenti o più istanze di favService. null per le liste create dall'utente.
+alter table favorite_lists add column default_kind varchar(16);
+create unique index ux_favorite_lists_owner_default_kind on favorite_lists (owner_id, default_kind);
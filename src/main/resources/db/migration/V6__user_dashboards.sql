@@ -0,0 +1,10 @@
+-- Read model per utente della schermata principale (GET /api/favorites/dashboard): liste proprie, liste
+-- condivise con l'utente, id degli eventi e nomi degli owner in un solo documento JSON letto per chiave primaria.
+-- Aggiornato da FavoriteListService nella stessa transazione di ogni modifica a una lista o alle condivisioni.
+-- content null = da ricostruire alla prossima lettura (es. dopo la creazione in blocco delle liste di default).
+create table favorite_user_dashboards (
+    user_id bigint not null,
+    version bigint not null,
+    content text,
+    primary key (user_id)
+);
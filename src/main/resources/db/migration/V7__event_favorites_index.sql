@@ -0,0 +1,17 @@
+-- Indice inverso evento -> liste ("chi ha tra i preferiti l'evento X"): la chiave primaria parte dalla lista
+create index ix_favorite_list_events_event_list on favorite_list_events (event_id, favorite_list_id);
+
+-- Numero di liste e di utenti (owner distinti) che contengono ogni evento, aggiornato da FavoriteListService
+-- a ogni aggiunta / rimozione di eventi e all'eliminazione di una lista; letto per chiave primaria.
+create table favorite_event_counts (
+    event_id   bigint not null,
+    list_count bigint not null default 0,
+    user_count bigint not null default 0,
+    primary key (event_id)
+);
+
+insert into favorite_event_counts (event_id, list_count, user_count)
+select e.event_id, count(*), count(distinct f.owner_id)
+from favorite_list_events e
+         join favorite_lists f on f.id = e.favorite_list_id
+group by e.event_id;
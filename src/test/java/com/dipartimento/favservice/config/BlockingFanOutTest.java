@@ -0,0 +1,47 @@
+package com.dipartimento.favservice.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+// Il limite di concorrenza vale per singolo fan-out: uno grande e lento non blocca gli altri
+class BlockingFanOutTest {
+
+    @Test
+    void largeFanOutDoesNotStarveOthers() throws Exception {
+        BlockingFanOut fanOut = new BlockingFanOut(true, 2);
+        CountDownLatch running = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Map<Long, Long>> large = CompletableFuture.supplyAsync(() ->
+                fanOut.mapAll(LongStream.rangeClosed(1, 10).boxed().toList(), key -> {
+                    running.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return key;
+                }));
+
+        try {
+            // il fan-out grande occupa tutti i suoi permessi
+            running.await(5, TimeUnit.SECONDS);
+            Map<Long, Long> small = assertTimeoutPreemptively(Duration.ofSeconds(2),
+                    () -> fanOut.mapAll(List.of(100L, 200L), key -> key * 2));
+            assertEquals(Map.of(100L, 200L, 200L, 400L), small);
+        } finally {
+            release.countDown();
+        }
+        assertEquals(10, large.get(5, TimeUnit.SECONDS).size());
+    }
+}
@@ -0,0 +1,159 @@
+package com.dipartimento.favservice.config;
+
+import com.dipartimento.favservice.dto.EventResponseDTO;
+import com.dipartimento.favservice.support.StubHttpServer;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Cache degli eventi di EventClient: solo gli id mancanti vanno a eventService, l'invalidazione forza
+// una nuova richiesta, l'ultimo valore noto copre eventService non disponibile, lookup concorrenti condividono la chiamata
+class EventClientTest {
+
+    private static final long MISSING_EVENT = 404L;
+
+    private final Queue<List<Long>> byIdsRequests = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger singleRequests = new AtomicInteger();
+    private volatile boolean failing;
+
+    private StubHttpServer eventService;
+
+    @BeforeEach
+    void startEventService() throws Exception {
+        eventService = new StubHttpServer()
+                .route("/events/public/byIds", req -> {
+                    if (failing) return new StubHttpServer.Response(500, "text/plain", "errore");
+                    List<Long> ids = ids(req.body());
+                    byIdsRequests.add(ids);
+                    return StubHttpServer.Response.json(ids.stream()
+                            .map(id -> "{\"id\":" + id + ",\"name\":\"Evento " + id + "\",\"status\":\"ACTIVE\"}")
+                            .collect(Collectors.joining(",", "[", "]")));
+                })
+                .route("/events/public/(\\d+)", req -> {
+                    singleRequests.incrementAndGet();
+                    long id = Long.parseLong(req.matcher().group(1));
+                    if (id == MISSING_EVENT) return new StubHttpServer.Response(404, "text/plain", "");
+                    return StubHttpServer.Response.json("{\"id\":" + id + ",\"name\":\"Evento " + id + "\",\"status\":\"ACTIVE\"}");
+                })
+                .delay(50);
+    }
+
+    @AfterEach
+    void stopEventService() {
+        eventService.close();
+    }
+
+    @Test
+    void partialHitFetchesOnlyMissingIds() {
+        EventClient client = client(Duration.ofMinutes(5));
+
+        client.getEventsByIds(List.of(1L, 2L, 3L), null);
+        List<EventResponseDTO> events = client.getEventsByIds(List.of(2L, 4L, 3L, 5L), null);
+
+        assertEquals(List.of(List.of(1L, 2L, 3L), List.of(4L, 5L)), List.copyOf(byIdsRequests));
+        assertEquals(List.of(2L, 4L, 3L, 5L), events.stream().map(EventResponseDTO::getId).toList());
+    }
+
+    @Test
+    void evictionForcesRefetch() {
+        EventClient client = client(Duration.ofMinutes(5));
+        client.getEventsByIds(List.of(1L, 2L, 3L), null);
+
+        client.evict(1L);
+        client.getEventsByIds(List.of(1L, 2L, 3L), null);
+        client.evictAll(List.of(2L, 3L));
+        client.getEventsByIds(List.of(1L, 2L, 3L), null);
+        client.evictAll();
+        client.getEventsByIds(List.of(1L, 2L, 3L), null);
+
+        assertEquals(List.of(List.of(1L, 2L, 3L), List.of(1L), List.of(2L, 3L), List.of(1L, 2L, 3L)),
+                List.copyOf(byIdsRequests));
+    }
+
+    @Test
+    void staleEventsServedOnlyWhenTheyCoverAllMissingIds() {
+        // voci subito scadute dalla cache principale, disponibili come ultimo valore noto
+        EventClient client = client(Duration.ofMillis(1));
+        client.getEventsByIds(List.of(1L, 2L), null);
+        failing = true;
+
+        assertEquals(2, client.getEventsByIds(List.of(1L, 2L), null).size());
+        assertThrows(RuntimeException.class, () -> client.getEventsByIds(List.of(1L, 3L), null));
+
+        // l'invalidazione toglie anche l'ultimo valore noto
+        client.evict(1L);
+        assertThrows(RuntimeException.class, () -> client.getEventsByIds(List.of(1L), null));
+    }
+
+    // Lookup concorrenti dello stesso evento: una sola chiamata in corso, condivisa tramite la cache asincrona
+    @Test
+    void concurrentLookupsOfTheSameEventShareOneCall() throws Exception {
+        EventClient client = client(Duration.ofMinutes(5));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<EventResponseDTO>> lookups = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                lookups.add(executor.submit(() -> client.getEventById(7L)));
+            }
+            for (Future<EventResponseDTO> lookup : lookups) {
+                assertEquals(7L, lookup.get().getId());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(1, singleRequests.get());
+        // già in cache anche per il lookup per id multipli
+        client.getEventsByIds(List.of(7L), null);
+        assertTrue(byIdsRequests.isEmpty());
+    }
+
+    @Test
+    void missingEventIsPropagatedAndNotCached() {
+        EventClient client = client(Duration.ofMinutes(5));
+
+        assertThrows(WebClientResponseException.NotFound.class, () -> client.getEventById(MISSING_EVENT));
+        assertThrows(WebClientResponseException.NotFound.class, () -> client.getEventById(MISSING_EVENT));
+
+        assertEquals(2, singleRequests.get());
+    }
+
+    private EventClient client(Duration ttl) {
+        return new EventClient(WebClient.builder().baseUrl(eventService.baseUrl()).build(),
+                1000, ttl, Duration.ofHours(1),
+                new DependencyGuard(CircuitBreaker.ofDefaults("eventService"),
+                        Bulkhead.of("eventService", BulkheadConfig.custom().maxConcurrentCalls(100).build()),
+                        Duration.ofSeconds(5)),
+                new SimpleMeterRegistry());
+    }
+
+    private static List<Long> ids(String body) {
+        return Arrays.stream(body.replaceAll("[\\[\\]\\s]", "").split(","))
+                .filter(id -> !id.isEmpty())
+                .map(Long::parseLong)
+                .toList();
+    }
+}
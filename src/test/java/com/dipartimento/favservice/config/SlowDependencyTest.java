@@ -0,0 +1,157 @@
+package com.dipartimento.favservice.config;
+
+import com.dipartimento.favservice.dto.EventResponseDTO;
+import com.dipartimento.favservice.support.StubHttpServer;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Comportamento dei client con un servizio esterno volutamente lento (stub locale)
+class SlowDependencyTest {
+
+    private static final long SLOW_MS = 2_000;
+
+    // response timeout 200ms, 2 chiamate concorrenti, circuito aperto dopo 4 chiamate fallite
+    private static final DependencySettings SETTINGS = new DependencySettings(
+            Duration.ofSeconds(1), Duration.ofMillis(200), 4, Duration.ofMillis(100), Duration.ofMillis(500),
+            2, 50f, Duration.ofSeconds(1), 4, Duration.ofMinutes(1));
+
+    private StubHttpServer userService;
+    private StubHttpServer eventService;
+    private SimpleMeterRegistry meterRegistry;
+    private DependencyGuard userGuard;
+    private UserClient userClient;
+    private EventClient eventClient;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        userService = new StubHttpServer()
+                .route("/api/users/(\\d+)/exists", req -> StubHttpServer.Response.json("true"))
+                .route("/api/users/(\\d+)/username", req -> StubHttpServer.Response.text("user" + req.matcher().group(1)));
+        eventService = new StubHttpServer()
+                .route("/events/public/byIds", req -> StubHttpServer.Response.json(
+                        "[{\"id\":1,\"name\":\"Evento 1\",\"status\":\"ACTIVE\"}]"));
+
+        meterRegistry = new SimpleMeterRegistry();
+        ResilienceConfig config = new ResilienceConfig();
+        CircuitBreakerRegistry circuitBreakers = config.circuitBreakerRegistry(meterRegistry);
+        BulkheadRegistry bulkheads = config.bulkheadRegistry(meterRegistry);
+        userGuard = ResilienceConfig.guard("userService", SETTINGS, circuitBreakers, bulkheads);
+
+        WebClient userWebClient = WebClientConfig.build(WebClient.builder(), "userService", userService.baseUrl(), SETTINGS);
+        WebClient eventWebClient = WebClientConfig.build(WebClient.builder(), "eventService", eventService.baseUrl(), SETTINGS);
+        // il primo avvio di Reactor Netty supera da solo il timeout di 500ms: riscaldamento fuori dal guard
+        userWebClient.get().uri("/api/users/0/exists").retrieve().bodyToMono(String.class).block();
+        eventWebClient.post().uri("/events/public/byIds").bodyValue(List.of()).retrieve().bodyToMono(String.class).block();
+        userService.resetCount();
+        eventService.resetCount();
+
+        // nomi subito scaduti: ogni richiesta torna a chiamare userService
+        userClient = new UserClient(userWebClient, 16,
+                1000, Duration.ofMillis(1), Duration.ofMillis(1), Duration.ofHours(1),
+                new BlockingFanOut(false, 32), userGuard, meterRegistry);
+        // eventi subito scaduti dalla cache principale, disponibili solo come ultimo valore noto
+        eventClient = new EventClient(eventWebClient,
+                1000, Duration.ofMillis(1), Duration.ofHours(1),
+                ResilienceConfig.guard("eventService", SETTINGS, circuitBreakers, bulkheads), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userService.close();
+        eventService.close();
+    }
+
+    @Test
+    void slowUserServiceTimesOutAndServesLastKnownName() throws Exception {
+        assertEquals("user1", userClient.getUserName(1L).block());
+        Thread.sleep(10);
+
+        userService.delay(SLOW_MS);
+        long start = System.nanoTime();
+        String name = userClient.getUserName(1L).block();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals("user1", name);
+        assertTrue(millis < 1_000, "risposta dopo " + millis + "ms");
+        assertEquals(UserClient.UNKNOWN_USER, userClient.getUserName(2L).block());
+    }
+
+    @Test
+    void circuitOpensAndFailsFastWithoutCallingTheService() {
+        userService.delay(SLOW_MS);
+        for (long id = 1; id <= 4; id++) {
+            userClient.getUserName(id).block();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, userGuard.state());
+
+        userService.resetCount();
+        long start = System.nanoTime();
+        for (long id = 1; id <= 20; id++) {
+            userClient.getUserName(id).block();
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(0, userService.requestCount());
+        assertTrue(millis < 500, "20 chiamate col circuito aperto in " + millis + "ms");
+
+        Counter opened = meterRegistry.find(ResilienceConfig.STATE_TRANSITIONS_METRIC)
+                .tags("name", "userService", "from", "CLOSED", "to", "OPEN")
+                .counter();
+        assertNotNull(opened);
+        assertEquals(1.0, opened.count());
+        assertNotNull(meterRegistry.find("resilience4j.circuitbreaker.state").tag("name", "userService").gauge());
+    }
+
+    @Test
+    void bulkheadLimitsConcurrentCallsToTheSlowService() throws Exception {
+        userService.delay(SLOW_MS);
+
+        List<Throwable> errors = Flux.range(1, 10)
+                .flatMap(id -> userClient.exists((long) id)
+                        .then(Mono.<Throwable>empty())
+                        .onErrorResume(Mono::just))
+                .collectList()
+                .block();
+
+        assertEquals(10, errors.size());
+        assertEquals(8, errors.stream().filter(e -> e instanceof BulkheadFullException).count());
+        Thread.sleep(100);
+        assertEquals(2, userService.requestCount());
+    }
+
+    @Test
+    void slowEventServiceServesStaleEvents() throws Exception {
+        List<EventResponseDTO> fresh = eventClient.getEventsByIds(List.of(1L), null);
+        assertEquals(1, fresh.size());
+        Thread.sleep(10);
+
+        eventService.delay(SLOW_MS);
+        long start = System.nanoTime();
+        List<EventResponseDTO> stale = eventClient.getEventsByIds(List.of(1L), null);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals("Evento 1", stale.get(0).getName());
+        assertTrue(millis < 1_000, "risposta dopo " + millis + "ms");
+
+        // nessun dato precedente per l'evento 2: l'errore viene propagato
+        assertThrows(RuntimeException.class, () -> eventClient.getEventsByIds(List.of(2L), null));
+    }
+}
@@ -0,0 +1,154 @@
+package com.dipartimento.favservice.config;
+
+import com.dipartimento.favservice.support.StubHttpServer;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserClientTest {
+
+    private static final long STUB_DELAY_MS = 40;
+    private static final long MISSING_USER = 999L;
+
+    private static StubHttpServer userService;
+    private static UserClient client;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        userService = new StubHttpServer()
+                .route("/api/users/(\\d+)/exists", req ->
+                        StubHttpServer.Response.json(Long.parseLong(req.matcher().group(1)) == MISSING_USER ? "false" : "true"))
+                .route("/api/users/(\\d+)/username", req -> Long.parseLong(req.matcher().group(1)) == MISSING_USER
+                        ? new StubHttpServer.Response(404, "text/plain", "")
+                        : StubHttpServer.Response.text("user" + req.matcher().group(1)))
+                .delay(STUB_DELAY_MS);
+        client = new UserClient(WebClient.builder().baseUrl(userService.baseUrl()).build(), 16,
+                1000, Duration.ofMinutes(10), Duration.ofSeconds(30), Duration.ofHours(1),
+                new BlockingFanOut(false, 32),
+                new DependencyGuard(CircuitBreaker.ofDefaults("userService"),
+                        Bulkhead.of("userService", BulkheadConfig.custom().maxConcurrentCalls(100).build()),
+                        Duration.ofSeconds(5)),
+                new SimpleMeterRegistry());
+
+        // warm-up connessioni
+        for (int i = 0; i < 3; i++) {
+            client.validateUsersExist(ids(16));
+        }
+    }
+
+    @AfterAll
+    static void tearDown() {
+        userService.close();
+    }
+
+    @Test
+    void p99StaysFlatAsSharedWithGrows() {
+        long p99Single = p99(ids(1));
+        long p99Medium = p99(ids(4));
+        long p99Large = p99(ids(16));
+
+        // con le chiamate in serie 16 utenti costerebbero ~16 * STUB_DELAY_MS
+        assertTrue(p99Medium < p99Single + 2 * STUB_DELAY_MS, "p99 4 utenti = " + p99Medium + "ms, 1 utente = " + p99Single + "ms");
+        assertTrue(p99Large < p99Single + 2 * STUB_DELAY_MS, "p99 16 utenti = " + p99Large + "ms, 1 utente = " + p99Single + "ms");
+    }
+
+    @Test
+    void duplicateIdsAreCheckedOnce() {
+        List<Long> withDuplicates = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            withDuplicates.addAll(ids(10));
+        }
+
+        userService.resetCount();
+        client.validateUsersExist(withDuplicates);
+
+        assertEquals(10, userService.requestCount());
+    }
+
+    @Test
+    void failsFastOnFirstMissingUser() {
+        List<Long> sharedWith = new ArrayList<>(ids(15));
+        sharedWith.add(MISSING_USER);
+
+        long start = System.nanoTime();
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> client.validateUsersExist(sharedWith));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals("UserId " + MISSING_USER + " does not exist", e.getMessage());
+        assertTrue(elapsedMs < 4 * STUB_DELAY_MS, "validazione durata " + elapsedMs + "ms");
+    }
+
+    @Test
+    void concurrentNameLookupsShareOneCall() {
+        userService.resetCount();
+
+        List<String> names = Flux.range(0, 20)
+                .flatMap(i -> client.getUserName(42L))
+                .collectList()
+                .block();
+
+        assertEquals(20, names.size());
+        assertTrue(names.stream().allMatch("user42"::equals));
+        assertEquals(1, userService.requestCount());
+        assertEquals("user42", client.getUserName(42L).block());
+        assertEquals(1, userService.requestCount());
+    }
+
+    // Senza virtual thread i nomi partono comunque insieme, non uno dopo l'altro
+    @Test
+    void userNamesAreResolvedInParallelWithoutVirtualThreads() {
+        List<Long> userIds = LongStream.rangeClosed(500, 515).boxed().toList();
+
+        long start = System.nanoTime();
+        Map<Long, String> names = client.getUserNames(userIds);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(userIds, List.copyOf(names.keySet()));
+        assertEquals("user515", names.get(515L));
+        // in serie sarebbero ~16 * STUB_DELAY_MS; margine per l'apertura delle connessioni
+        assertTrue(elapsedMs < 8 * STUB_DELAY_MS, "16 nomi risolti in " + elapsedMs + "ms");
+    }
+
+    @Test
+    void missingUserIsCachedAsUnknown() {
+        userService.resetCount();
+
+        assertEquals(UserClient.UNKNOWN_USER, client.getUserName(MISSING_USER).block());
+        assertEquals(UserClient.UNKNOWN_USER, client.getUserName(MISSING_USER).block());
+
+        assertEquals(1, userService.requestCount());
+    }
+
+    private static long p99(List<Long> sharedWith) {
+        List<Long> samples = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            long start = System.nanoTime();
+            client.validateUsersExist(sharedWith);
+            samples.add((System.nanoTime() - start) / 1_000_000);
+        }
+        Collections.sort(samples);
+        return samples.get((int) Math.ceil(samples.size() * 0.99) - 1);
+    }
+
+    private static List<Long> ids(int count) {
+        return LongStream.rangeClosed(1, count).boxed().toList();
+    }
+}
@@ -0,0 +1,48 @@
+package com.dipartimento.favservice.controller;
+
+import com.dipartimento.favservice.util.JwtUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Invalidazione della cache eventi riservata agli amministratori
+@SpringBootTest
+@AutoConfigureMockMvc
+class EventCacheControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private final String user = "Bearer " + JwtUtil.generateToken(9_028L, "user", "USER");
+    private final String admin = "Bearer " + JwtUtil.generateToken(9_029L, "admin", "ADMIN");
+
+    @Test
+    void nonAdminIsForbidden() throws Exception {
+        mockMvc.perform(delete("/api/favorites/admin/event-cache/{eventId}", 1L).header(HttpHeaders.AUTHORIZATION, user))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/favorites/admin/event-cache/invalidate").header(HttpHeaders.AUTHORIZATION, user)
+                        .contentType(MediaType.APPLICATION_JSON).content("[1,2]"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(delete("/api/favorites/admin/event-cache").header(HttpHeaders.AUTHORIZATION, user))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void adminCanEvict() throws Exception {
+        mockMvc.perform(delete("/api/favorites/admin/event-cache/{eventId}", 1L).header(HttpHeaders.AUTHORIZATION, admin))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/favorites/admin/event-cache/invalidate").header(HttpHeaders.AUTHORIZATION, admin)
+                        .contentType(MediaType.APPLICATION_JSON).content("[1,2]"))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/favorites/admin/event-cache").header(HttpHeaders.AUTHORIZATION, admin))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,149 @@
+package com.dipartimento.favservice.controller;
+
+import com.dipartimento.favservice.domain.FavoriteList;
+import com.dipartimento.favservice.repository.FavoriteListRepository;
+import com.dipartimento.favservice.support.StubHttpServer;
+import com.dipartimento.favservice.util.JwtUtil;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Dettaglio di una lista con userService in errore per l'owner: la parte finisce in "missing"
+// invece di comparire come "Unknown"
+@SpringBootTest
+@AutoConfigureMockMvc
+class FavoriteListDetailsTest {
+
+    private static final long OWNER = 9_033L;
+    private static final long SHARED_BY = 9_034L;
+    // sharedBy mai risolto da altri test, quindi non già nella cache dei nomi
+    private static final long UNCACHED_SHARED_BY = 9_036L;
+
+    private static final AtomicInteger sharedByLookups = new AtomicInteger();
+    private static final StubHttpServer userService = startUserService();
+    private static final StubHttpServer eventService = startEventService();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FavoriteListRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void serviceUrls(DynamicPropertyRegistry registry) {
+        registry.add("services.user.base-url", userService::baseUrl);
+        registry.add("services.event.base-url", eventService::baseUrl);
+    }
+
+    @AfterAll
+    static void stopServices() {
+        userService.close();
+        eventService.close();
+    }
+
+    @AfterEach
+    void deleteLists() {
+        jdbcTemplate.update("delete from favorite_lists where owner_id = ?", OWNER);
+    }
+
+    @Test
+    void failedOwnerLookupIsReportedAsMissing() throws Exception {
+        FavoriteList list = new FavoriteList();
+        list.setName("Concerti");
+        list.setOwnerId(OWNER);
+        list.setSharedByUserId(SHARED_BY);
+        list.setVisibility(FavoriteList.Visibility.PRIVATE);
+        list.setEventIds(List.of(800_201L));
+        UUID listId = repository.save(list).getId();
+        String bearer = "Bearer " + JwtUtil.generateToken(OWNER, "owner", "USER");
+
+        mockMvc.perform(get("/api/favorites/{id}/details", listId).header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ownerUsername").value(nullValue()))
+                .andExpect(jsonPath("$.missing.length()").value(1))
+                .andExpect(jsonPath("$.missing[0]").value("owner"))
+                .andExpect(jsonPath("$.events[0].id").value(800_201L));
+
+        mockMvc.perform(get("/api/favorites/lists/{id}/with-owner", listId).header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.owner").value(nullValue()))
+                .andExpect(jsonPath("$.sharedBy.name").value("user" + SHARED_BY))
+                .andExpect(jsonPath("$.missing.length()").value(1))
+                .andExpect(jsonPath("$.missing[0]").value("owner"));
+    }
+
+    // /with-events restituisce solo gli eventi e /details non ha sharedBy: nessuna chiamata inutile a userService
+    @Test
+    void onlyTheRenderedPartsAreFetched() throws Exception {
+        FavoriteList list = new FavoriteList();
+        list.setName("Teatro");
+        list.setOwnerId(OWNER);
+        list.setSharedByUserId(UNCACHED_SHARED_BY);
+        list.setVisibility(FavoriteList.Visibility.PRIVATE);
+        list.setEventIds(List.of(800_201L));
+        UUID listId = repository.save(list).getId();
+        String bearer = "Bearer " + JwtUtil.generateToken(OWNER, "owner", "USER");
+
+        userService.resetCount();
+        mockMvc.perform(get("/api/favorites/lists/{id}/with-events", listId).header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.missing.length()").value(0))
+                .andExpect(jsonPath("$.events[0].id").value(800_201L));
+        assertEquals(0, userService.requestCount());
+
+        sharedByLookups.set(0);
+        mockMvc.perform(get("/api/favorites/{id}/details", listId).header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.missing.length()").value(1))
+                .andExpect(jsonPath("$.missing[0]").value("owner"));
+        assertEquals(0, sharedByLookups.get());
+    }
+
+    private static StubHttpServer startUserService() {
+        try {
+            return new StubHttpServer()
+                    .route("/api/users/(\\d+)/username", req -> {
+                        long userId = Long.parseLong(req.matcher().group(1));
+                        if (userId == UNCACHED_SHARED_BY) sharedByLookups.incrementAndGet();
+                        return userId == OWNER
+                                ? new StubHttpServer.Response(500, "text/plain", "errore")
+                                : StubHttpServer.Response.text("user" + userId);
+                    });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static StubHttpServer startEventService() {
+        try {
+            return new StubHttpServer()
+                    .route("/events/public/byIds", req -> StubHttpServer.Response.json(
+                            "[{\"id\":800201,\"name\":\"Evento\",\"status\":\"ACTIVE\"}]"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.dipartimento.favservice.controller;
+
+import com.dipartimento.favservice.domain.FavoriteList;
+import com.dipartimento.favservice.repository.FavoriteListRepository;
+import com.dipartimento.favservice.support.StubHttpServer;
+import com.dipartimento.favservice.util.JwtUtil;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class FavoriteListETagTest {
+
+    private static final long OWNER = 9_003L;
+
+    private static final StubHttpServer eventService = startEventService();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FavoriteListRepository repository;
+
+    private final String bearer = "Bearer " + JwtUtil.generateToken(OWNER, "owner", "USER");
+
+    private FavoriteList list;
+
+    @DynamicPropertySource
+    static void eventServiceUrl(DynamicPropertyRegistry registry) {
+        registry.add("services.event.base-url", eventService::baseUrl);
+    }
+
+    @AfterAll
+    static void stopEventService() {
+        eventService.close();
+    }
+
+    @BeforeEach
+    void createList() {
+        FavoriteList favoriteList = new FavoriteList();
+        favoriteList.setName("Concerti");
+        favoriteList.setOwnerId(OWNER);
+        favoriteList.setVisibility(FavoriteList.Visibility.PUBLIC);
+        favoriteList.setCapabilityToken(UUID.randomUUID().toString());
+        favoriteList.setEventIds(List.of(1L));
+        list = repository.save(favoriteList);
+    }
+
+    @AfterEach
+    void deleteList() {
+        repository.deleteById(list.getId());
+    }
+
+    @Test
+    void unchangedListIsNotModified() throws Exception {
+        String etag = mockMvc.perform(get("/api/favorites/lists/{id}", list.getId()).header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/favorites/lists/{id}", list.getId())
+                        .header(HttpHeaders.AUTHORIZATION, bearer)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        mockMvc.perform(get("/api/favorites/public/{token}", list.getCapabilityToken())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void myListsETagChangesWhenAListChanges() throws Exception {
+        String before = mockMvc.perform(get("/api/favorites/lists").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/favorites/lists")
+                        .header(HttpHeaders.AUTHORIZATION, bearer)
+                        .header(HttpHeaders.IF_NONE_MATCH, before))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(post("/api/favorites/lists/{id}/events/{eventId}", list.getId(), 2L)
+                        .header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk());
+
+        String after = mockMvc.perform(get("/api/favorites/lists")
+                        .header(HttpHeaders.AUTHORIZATION, bearer)
+                        .header(HttpHeaders.IF_NONE_MATCH, before))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(before, after);
+    }
+
+    @Test
+    void writesHonorIfMatch() throws Exception {
+        mockMvc.perform(post("/api/favorites/lists/{id}/events/{eventId}", list.getId(), 2L)
+                        .header(HttpHeaders.AUTHORIZATION, bearer)
+                        .header(HttpHeaders.IF_MATCH, "\"0\""))
+                .andExpect(status().isOk());
+
+        // il client ha ancora la versione 0: la scrittura viene rifiutata e non applicata
+        mockMvc.perform(delete("/api/favorites/lists/{id}/events/{eventId}", list.getId(), 1L)
+                        .header(HttpHeaders.AUTHORIZATION, bearer)
+                        .header(HttpHeaders.IF_MATCH, "\"0\""))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(post("/api/favorites/lists/{id}/events/{eventId}", list.getId(), 3L)
+                        .header(HttpHeaders.AUTHORIZATION, bearer)
+                        .header(HttpHeaders.IF_MATCH, "\"0\""))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(get("/api/favorites/lists/{id}", list.getId()).header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(content().json("{\"eventIds\":[1,2]}"));
+
+        mockMvc.perform(delete("/api/favorites/lists/{id}/events/{eventId}", list.getId(), 1L)
+                        .header(HttpHeaders.AUTHORIZATION, bearer)
+                        .header(HttpHeaders.IF_MATCH, "\"1\""))
+                .andExpect(status().isOk());
+    }
+
+    private static StubHttpServer startEventService() {
+        try {
+            return new StubHttpServer()
+                    .route("/events/public/(\\d+)", req -> StubHttpServer.Response.json(
+                            "{\"id\":" + req.matcher().group(1) + ",\"name\":\"Evento\",\"status\":\"ACTIVE\"}"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.dipartimento.favservice.controller;
+
+import com.dipartimento.favservice.domain.FavoriteList;
+import com.dipartimento.favservice.repository.FavoriteListRepository;
+import com.dipartimento.favservice.support.StubHttpServer;
+import com.dipartimento.favservice.util.JwtUtil;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// /api/v2/favorites restituisce gli stessi payload delle composizioni bloccanti di /api/favorites
+@SpringBootTest
+@AutoConfigureMockMvc
+class FavoriteListReactiveControllerTest {
+
+    private static final long OWNER = 9_030L;
+    private static final long RECIPIENT = 9_031L;
+    private static final long SHARED_BY = 9_032L;
+
+    private static final StubHttpServer eventService = startEventService();
+    private static final StubHttpServer userService = startUserService();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FavoriteListRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final String owner = "Bearer " + JwtUtil.generateToken(OWNER, "owner", "USER");
+    private final String recipient = "Bearer " + JwtUtil.generateToken(RECIPIENT, "recipient", "USER");
+
+    private UUID listId;
+
+    @DynamicPropertySource
+    static void serviceUrls(DynamicPropertyRegistry registry) {
+        registry.add("services.event.base-url", eventService::baseUrl);
+        registry.add("services.user.base-url", userService::baseUrl);
+    }
+
+    @AfterAll
+    static void stopServices() {
+        eventService.close();
+        userService.close();
+    }
+
+    @BeforeEach
+    void createLists() {
+        listId = list("Concerti", List.of(800_101L, 800_102L, 800_103L));
+        list("Teatro", List.of(800_103L, 800_104L));
+    }
+
+    @AfterEach
+    void deleteLists() {
+        jdbcTemplate.update("delete from favorite_lists where owner_id = ?", OWNER);
+    }
+
+    @Test
+    void listWithEventsMatchesV1() throws Exception {
+        assertSamePayload("/lists/" + listId + "/with-events", owner, "Concerti", "Evento 800102");
+    }
+
+    @Test
+    void listWithOwnerMatchesV1() throws Exception {
+        assertSamePayload("/lists/" + listId + "/with-owner", owner, "user" + OWNER, "user" + SHARED_BY);
+    }
+
+    @Test
+    void sharedWithMeWithEventsMatchesV1() throws Exception {
+        assertSamePayload("/lists/shared-with-me/with-events", recipient, "user" + OWNER, "Evento 800104");
+    }
+
+    @Test
+    void myListsWithOwnerMatchesV1() throws Exception {
+        assertSamePayload("/my/" + OWNER, owner, "Concerti", "Teatro", "user" + SHARED_BY);
+    }
+
+    // expected: frammenti che il payload v1 deve contenere, perché il confronto non passi su risposte vuote
+    private void assertSamePayload(String path, String bearer, String... expected) throws Exception {
+        String v1 = mockMvc.perform(get("/api/favorites" + path).header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        for (String fragment : expected) {
+            assertTrue(v1.contains(fragment), fragment + " non presente in " + v1);
+        }
+
+        MvcResult v2 = mockMvc.perform(get("/api/v2/favorites" + path).header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(v2))
+                .andExpect(status().isOk())
+                .andExpect(content().json(v1, true));
+    }
+
+    private UUID list(String name, List<Long> eventIds) {
+        FavoriteList list = new FavoriteList();
+        list.setName(name);
+        list.setOwnerId(OWNER);
+        list.setSharedByUserId(SHARED_BY);
+        list.setVisibility(FavoriteList.Visibility.SHARED);
+        list.setSharedWith(List.of(RECIPIENT));
+        list.setEventIds(eventIds);
+        return repository.save(list).getId();
+    }
+
+    private static StubHttpServer startEventService() {
+        try {
+            return new StubHttpServer()
+                    .route("/events/public/byIds", req -> StubHttpServer.Response.json(List.of(
+                                    req.body().replaceAll("[\\[\\]\\s]", "").split(",")).stream()
+                            .filter(id -> !id.isEmpty())
+                            .map(id -> "{\"id\":" + id + ",\"name\":\"Evento " + id + "\",\"location\":\"Roma\","
+                                    + "\"price\":10.0,\"capacity\":100,\"status\":\"ACTIVE\",\"organizerId\":1}")
+                            .collect(Collectors.joining(",", "[", "]"))));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static StubHttpServer startUserService() {
+        try {
+            return new StubHttpServer()
+                    .route("/api/users/(\\d+)/username", req -> StubHttpServer.Response.text("user" + req.matcher().group(1)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.dipartimento.favservice.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+// Con management.server.port lo scrape Prometheus risponde solo sulla porta di management
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "management.server.port=0")
+@AutoConfigureObservability(tracing = false)
+class ManagementPortTest {
+
+    @LocalServerPort
+    private int serverPort;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    @Test
+    void prometheusIsServedOnlyOnManagementPort() {
+        assertNotEquals(serverPort, managementPort);
+        assertEquals(200, status(managementPort, "/actuator/prometheus"));
+        assertEquals(200, status(managementPort, "/actuator/health"));
+        assertNotEquals(200, status(serverPort, "/actuator/prometheus"));
+    }
+
+    private static int status(int port, String path) {
+        return WebClient.create("http://localhost:" + port).get().uri(path)
+                .exchangeToMono(response -> response.releaseBody().thenReturn(response.statusCode().value()))
+                .block();
+    }
+}
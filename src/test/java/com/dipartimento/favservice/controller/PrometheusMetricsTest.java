@@ -0,0 +1,127 @@
+package com.dipartimento.favservice.controller;
+
+import com.dipartimento.favservice.domain.FavoriteList;
+import com.dipartimento.favservice.repository.FavoriteListRepository;
+import com.dipartimento.favservice.support.StubHttpServer;
+import com.dipartimento.favservice.util.JwtUtil;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Una chiamata a /lists/shared-with-me/with-events e le serie che ne scompongono la latenza su /actuator/prometheus
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+class PrometheusMetricsTest {
+
+    private static final long OWNER = 9_005L;
+    private static final long READER = 9_006L;
+
+    private static final StubHttpServer eventService = startEventService();
+    private static final StubHttpServer userService = startUserService();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FavoriteListRepository repository;
+
+    private FavoriteList list;
+
+    @DynamicPropertySource
+    static void serviceUrls(DynamicPropertyRegistry registry) {
+        registry.add("services.event.base-url", eventService::baseUrl);
+        registry.add("services.user.base-url", userService::baseUrl);
+    }
+
+    @AfterAll
+    static void stopServices() {
+        eventService.close();
+        userService.close();
+    }
+
+    @BeforeEach
+    void createList() {
+        FavoriteList favoriteList = new FavoriteList();
+        favoriteList.setName("Teatro");
+        favoriteList.setOwnerId(OWNER);
+        favoriteList.setVisibility(FavoriteList.Visibility.SHARED);
+        favoriteList.setSharedWith(List.of(READER));
+        favoriteList.setEventIds(List.of(1L, 2L, 3L));
+        list = repository.save(favoriteList);
+    }
+
+    @AfterEach
+    void deleteList() {
+        repository.deleteById(list.getId());
+    }
+
+    @Test
+    void sharedWithMeLatencyIsBrokenDownByDependency() throws Exception {
+        mockMvc.perform(get("/api/favorites/lists/shared-with-me/with-events")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + JwtUtil.generateToken(READER, "reader", "USER")))
+                .andExpect(status().isOk());
+
+        // lo scrape non richiede token
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertSeries(scrape, "http_server_requests_seconds_bucket", "uri=\"/api/favorites/lists/shared-with-me/with-events\"");
+        assertSeries(scrape, "favorites_service_seconds_bucket", "method=\"getSharedWithMe\"");
+        assertSeries(scrape, "favorites_service_seconds_count", "method=\"getEventsByIdsBulk\"");
+        assertSeries(scrape, "spring_data_repository_invocations_seconds_bucket", "method=\"findBySharedWithContains\"");
+        assertSeries(scrape, "http_client_requests_seconds_bucket", "uri=\"/events/public/byIds\"", "status=\"200\"");
+        assertSeries(scrape, "http_client_requests_seconds_count", "uri=\"/api/users/{id}/username\"");
+        assertSeries(scrape, "favorites_lists_size_lists_bucket", "operation=\"sharedWithMe\"");
+        assertSeries(scrape, "favorites_event_ids_bucket", "stage=\"requested\"");
+    }
+
+    private static void assertSeries(String scrape, String name, String... labels) {
+        boolean found = scrape.lines()
+                .filter(line -> line.startsWith(name + "{"))
+                .anyMatch(line -> Arrays.stream(labels).allMatch(line::contains));
+        assertTrue(found, "serie " + name + " " + Arrays.toString(labels) + " assente");
+    }
+
+    private static StubHttpServer startEventService() {
+        try {
+            return new StubHttpServer()
+                    .route("/events/public/byIds", req -> StubHttpServer.Response.json(Arrays.stream(
+                                    req.body().replaceAll("[\\[\\]\\s]", "").split(","))
+                            .filter(id -> !id.isEmpty())
+                            .map(id -> "{\"id\":" + id + ",\"name\":\"Evento " + id + "\",\"status\":\"ACTIVE\"}")
+                            .collect(Collectors.joining(",", "[", "]"))));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static StubHttpServer startUserService() {
+        try {
+            return new StubHttpServer()
+                    .route("/api/users/(\\d+)/username", req -> StubHttpServer.Response.text("user" + req.matcher().group(1)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
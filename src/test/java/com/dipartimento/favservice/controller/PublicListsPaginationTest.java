@@ -0,0 +1,172 @@
+package com.dipartimento.favservice.controller;
+
+import com.dipartimento.favservice.domain.FavoriteList;
+import com.dipartimento.favservice.repository.FavoriteListRepository;
+import com.dipartimento.favservice.service.FavoriteListService;
+import com.dipartimento.favservice.util.JwtUtil;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Liste pubbliche: paginazione keyset con X-Next-Cursor (assente sull'ultima pagina) e variante NDJSON,
+// che restituisce le stesse liste scorrendo le pagine lato server
+@SpringBootTest(properties = "favorites.public-lists.max-page-size=3")
+@AutoConfigureMockMvc
+class PublicListsPaginationTest {
+
+    private static final long OWNER = 9_035L;
+    private static final int PUBLIC_LISTS = 7;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FavoriteListRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private FavoriteListService service;
+
+    private final String bearer = "Bearer " + JwtUtil.generateToken(OWNER, "owner", "USER");
+
+    private final Set<UUID> created = new HashSet<>();
+
+    @BeforeEach
+    void createLists() {
+        for (int i = 0; i < PUBLIC_LISTS; i++) {
+            created.add(list("Pubblica " + i, FavoriteList.Visibility.PUBLIC));
+        }
+        list("Privata", FavoriteList.Visibility.PRIVATE);
+    }
+
+    @AfterEach
+    void deleteLists() {
+        jdbcTemplate.update("delete from favorite_lists where owner_id = ?", OWNER);
+    }
+
+    @Test
+    void pagesFollowCursorUntilLastPage() throws Exception {
+        List<UUID> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            MockHttpServletRequestBuilder request = get("/api/favorites/lists/public").param("size", "2")
+                    .header(HttpHeaders.AUTHORIZATION, bearer);
+            if (cursor != null) request.param("after", cursor);
+            MockHttpServletResponse response = mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse();
+
+            List<UUID> page = ids(objectMapper.readTree(response.getContentAsString()));
+            cursor = response.getHeader(FavoriteListController.NEXT_CURSOR_HEADER);
+            assertTrue(page.size() <= 2, "pagina di " + page.size() + " liste");
+            if (cursor != null) {
+                assertEquals(2, page.size());
+                assertEquals(page.get(1).toString(), cursor);
+            }
+            seen.addAll(page);
+            pages++;
+        } while (cursor != null && pages < 100);
+
+        assertNull(cursor, "X-Next-Cursor presente sull'ultima pagina");
+        assertEquals(seen.size(), new HashSet<>(seen).size(), "liste ripetute tra le pagine");
+        assertTrue(seen.containsAll(created));
+        assertEquals(PUBLIC_LISTS, seen.stream().filter(created::contains).count());
+    }
+
+    @Test
+    void pageSizeIsCappedAtMax() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/api/favorites/lists/public").param("size", "1000")
+                        .header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        assertEquals(3, objectMapper.readTree(response.getContentAsString()).size());
+    }
+
+    @Test
+    void ndjsonStreamsAllPublicListsOnePerLine() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/favorites/lists/public")
+                        .header(HttpHeaders.AUTHORIZATION, bearer)
+                        .header(HttpHeaders.ACCEPT, "application/x-ndjson"))
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        List<UUID> streamed = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            JsonNode list = objectMapper.readTree(line);
+            assertEquals("PUBLIC", list.get("visibility").asText());
+            streamed.add(UUID.fromString(list.get("id").asText()));
+        }
+
+        assertEquals(streamed.size(), new HashSet<>(streamed).size(), "liste ripetute nello stream");
+        assertTrue(streamed.containsAll(created));
+    }
+
+    // Il consumer (la scrittura verso il client) gira fuori dalla transazione di lettura della pagina,
+    // con le collezioni della lista già caricate
+    @Test
+    void publicPagesAreConsumedOutsideTheReadTransaction() {
+        List<UUID> consumed = new ArrayList<>();
+        service.forEachPublicListsPage(page -> page.forEach(list -> {
+            assertFalse(TransactionSynchronizationManager.isActualTransactionActive());
+            if (created.contains(list.getId())) {
+                assertEquals(Set.of(800_301L), Set.copyOf(list.getEventIds()));
+                consumed.add(list.getId());
+            }
+        }));
+
+        assertEquals(created, Set.copyOf(consumed));
+    }
+
+    private UUID list(String name, FavoriteList.Visibility visibility) {
+        FavoriteList list = new FavoriteList();
+        list.setName(name);
+        list.setOwnerId(OWNER);
+        list.setVisibility(visibility);
+        list.setCapabilityToken(UUID.randomUUID().toString());
+        list.setEventIds(List.of(800_301L));
+        return repository.save(list).getId();
+    }
+
+    private static List<UUID> ids(JsonNode lists) {
+        List<UUID> ids = new ArrayList<>();
+        lists.forEach(list -> ids.add(UUID.fromString(list.get("id").asText())));
+        return ids;
+    }
+}
@@ -0,0 +1,134 @@
+package com.dipartimento.favservice.controller;
+
+import com.dipartimento.favservice.domain.FavoriteList;
+import com.dipartimento.favservice.repository.FavoriteListRepository;
+import com.dipartimento.favservice.support.StubHttpServer;
+import com.dipartimento.favservice.util.JwtUtil;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// shared-with-me/with-events: gli eventi di tutte le liste condivise arrivano con una sola richiesta byIds,
+// senza id ripetuti anche se le liste si sovrappongono
+@SpringBootTest
+@AutoConfigureMockMvc
+class SharedWithMeEventsTest {
+
+    private static final long OWNER = 9_026L;
+    private static final long RECIPIENT = 9_027L;
+    private static final long FIRST_EVENT = 800_001L;
+
+    private static final Queue<String> byIdsBodies = new ConcurrentLinkedQueue<>();
+    private static final StubHttpServer eventService = startEventService();
+    private static final StubHttpServer userService = startUserService();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FavoriteListRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void serviceUrls(DynamicPropertyRegistry registry) {
+        registry.add("services.event.base-url", eventService::baseUrl);
+        registry.add("services.user.base-url", userService::baseUrl);
+    }
+
+    @AfterAll
+    static void stopServices() {
+        eventService.close();
+        userService.close();
+    }
+
+    @AfterEach
+    void deleteLists() {
+        jdbcTemplate.update("delete from favorite_lists where owner_id = ?", OWNER);
+    }
+
+    @Test
+    void overlappingListsAreFetchedWithOneDeduplicatedCall() throws Exception {
+        // eventi 1-5, 3-8 e 5-10 (relativi a FIRST_EVENT): 10 distinti su 16
+        sharedList(0, 5);
+        sharedList(2, 8);
+        sharedList(4, 10);
+        byIdsBodies.clear();
+
+        mockMvc.perform(get("/api/favorites/lists/shared-with-me/with-events")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + JwtUtil.generateToken(RECIPIENT, "recipient", "USER")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].events.length()").value(5))
+                .andExpect(jsonPath("$[0].ownerUsername").value("user" + OWNER));
+
+        assertEquals(1, byIdsBodies.size());
+        List<Long> requested = ids(byIdsBodies.peek());
+        assertEquals(10, requested.size());
+        assertEquals(LongStream.range(FIRST_EVENT, FIRST_EVENT + 10).boxed().collect(Collectors.toSet()), Set.copyOf(requested));
+    }
+
+    private void sharedList(long fromOffset, long toOffset) {
+        FavoriteList list = new FavoriteList();
+        list.setName("Condivisa");
+        list.setOwnerId(OWNER);
+        list.setVisibility(FavoriteList.Visibility.SHARED);
+        list.setSharedWith(List.of(RECIPIENT));
+        list.setEventIds(LongStream.range(FIRST_EVENT + fromOffset, FIRST_EVENT + toOffset).boxed().toList());
+        repository.save(list);
+    }
+
+    private static List<Long> ids(String body) {
+        return Arrays.stream(body.replaceAll("[\\[\\]\\s]", "").split(","))
+                .filter(id -> !id.isEmpty())
+                .map(Long::parseLong)
+                .toList();
+    }
+
+    private static StubHttpServer startEventService() {
+        try {
+            return new StubHttpServer()
+                    .route("/events/public/byIds", req -> {
+                        byIdsBodies.add(req.body());
+                        return StubHttpServer.Response.json(ids(req.body()).stream()
+                                .map(id -> "{\"id\":" + id + ",\"name\":\"Evento " + id + "\",\"status\":\"ACTIVE\"}")
+                                .collect(Collectors.joining(",", "[", "]")));
+                    });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static StubHttpServer startUserService() {
+        try {
+            return new StubHttpServer()
+                    .route("/api/users/(\\d+)/username", req -> StubHttpServer.Response.text("user" + req.matcher().group(1)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
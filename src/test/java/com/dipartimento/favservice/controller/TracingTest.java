@@ -0,0 +1,191 @@
+package com.dipartimento.favservice.controller;
+
+import com.dipartimento.favservice.domain.FavoriteList;
+import com.dipartimento.favservice.repository.FavoriteListRepository;
+import com.dipartimento.favservice.support.StubHttpServer;
+import com.dipartimento.favservice.util.JwtUtil;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Span di /lists/shared-with-me/with-events: query JDBC e chiamate a eventService / userService
+// sono discendenti dello span server e i servizi a valle ricevono lo stesso trace id
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class TracingTest {
+
+    private static final long OWNER = 9_007L;
+    private static final long READER = 9_008L;
+
+    // header traceparent ricevuti dagli stub, per path
+    private static final Map<String, String> traceparents = new ConcurrentHashMap<>();
+
+    private static final StubHttpServer eventService = startEventService();
+    private static final StubHttpServer userService = startUserService();
+
+    @TestConfiguration
+    static class InMemoryExport {
+
+        @Bean
+        InMemorySpanExporter inMemorySpanExporter() {
+            return InMemorySpanExporter.create();
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FavoriteListRepository repository;
+
+    @Autowired
+    private InMemorySpanExporter spans;
+
+    @Autowired
+    private SdkTracerProvider tracerProvider;
+
+    private FavoriteList list;
+
+    @DynamicPropertySource
+    static void serviceUrls(DynamicPropertyRegistry registry) {
+        registry.add("services.event.base-url", eventService::baseUrl);
+        registry.add("services.user.base-url", userService::baseUrl);
+    }
+
+    @AfterAll
+    static void stopServices() {
+        eventService.close();
+        userService.close();
+    }
+
+    @BeforeEach
+    void createList() {
+        FavoriteList favoriteList = new FavoriteList();
+        favoriteList.setName("Mostre");
+        favoriteList.setOwnerId(OWNER);
+        favoriteList.setVisibility(FavoriteList.Visibility.SHARED);
+        favoriteList.setSharedWith(List.of(READER));
+        favoriteList.setEventIds(List.of(1L, 2L));
+        list = repository.save(favoriteList);
+        flush();
+        spans.reset();
+        traceparents.clear();
+    }
+
+    @AfterEach
+    void deleteList() {
+        repository.deleteById(list.getId());
+    }
+
+    @Test
+    void downstreamSpansNestUnderTheServerSpan() throws Exception {
+        mockMvc.perform(get("/api/favorites/lists/shared-with-me/with-events")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + JwtUtil.generateToken(READER, "reader", "USER")))
+                .andExpect(status().isOk());
+        flush();
+
+        List<SpanData> finished = spans.getFinishedSpanItems();
+        SpanData server = finished.stream()
+                .filter(span -> span.getKind() == SpanKind.SERVER)
+                .filter(span -> "/api/favorites/lists/shared-with-me/with-events".equals(attribute(span, "uri")))
+                .findFirst().orElseThrow();
+        Map<String, SpanData> byId = finished.stream().collect(Collectors.toMap(SpanData::getSpanId, Function.identity()));
+
+        // anche gli span JDBC sono di tipo CLIENT: qui solo le chiamate HTTP
+        List<SpanData> clients = finished.stream()
+                .filter(span -> span.getKind() == SpanKind.CLIENT && span.getName().startsWith("http"))
+                .toList();
+        assertEquals(Set.of("/events/public/byIds", "/api/users/{id}/username"),
+                clients.stream().map(span -> attribute(span, "uri")).collect(Collectors.toSet()));
+        clients.forEach(span -> assertTrue(isDescendant(span, server, byId), span.getName() + " fuori dalla richiesta"));
+
+        List<SpanData> queries = finished.stream().filter(span -> span.getName().equals("query")).toList();
+        assertFalse(queries.isEmpty());
+        queries.forEach(span -> assertTrue(isDescendant(span, server, byId), "query fuori dalla richiesta"));
+
+        // propagazione W3C: version-traceId-spanId-flags
+        assertEquals(Set.of("/events/public/byIds", "/api/users/" + OWNER + "/username"), traceparents.keySet());
+        traceparents.values().forEach(header -> assertEquals(server.getTraceId(), header.split("-")[1]));
+    }
+
+    private void flush() {
+        tracerProvider.forceFlush().join(5, TimeUnit.SECONDS);
+    }
+
+    private static boolean isDescendant(SpanData span, SpanData ancestor, Map<String, SpanData> byId) {
+        SpanData current = span;
+        while (current != null) {
+            if (current.getParentSpanId().equals(ancestor.getSpanId())) return true;
+            current = byId.get(current.getParentSpanId());
+        }
+        return false;
+    }
+
+    private static String attribute(SpanData span, String key) {
+        return span.getAttributes().asMap().entrySet().stream()
+                .filter(entry -> entry.getKey().getKey().equals(key))
+                .map(entry -> String.valueOf(entry.getValue()))
+                .findFirst().orElse(null);
+    }
+
+    private static StubHttpServer startEventService() {
+        try {
+            return new StubHttpServer()
+                    .route("/events/public/byIds", req -> {
+                        traceparents.put(req.path(), req.header("traceparent"));
+                        return StubHttpServer.Response.json(Arrays.stream(
+                                        req.body().replaceAll("[\\[\\]\\s]", "").split(","))
+                                .filter(id -> !id.isEmpty())
+                                .map(id -> "{\"id\":" + id + ",\"name\":\"Evento " + id + "\",\"status\":\"ACTIVE\"}")
+                                .collect(Collectors.joining(",", "[", "]")));
+                    });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static StubHttpServer startUserService() {
+        try {
+            return new StubHttpServer()
+                    .route("/api/users/(\\d+)/username", req -> {
+                        traceparents.put(req.path(), req.header("traceparent"));
+                        return StubHttpServer.Response.text("user" + req.matcher().group(1));
+                    });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.dipartimento.favservice.load;
+
+import com.dipartimento.favservice.FavServiceApplication;
+import com.dipartimento.favservice.domain.FavoriteList;
+import com.dipartimento.favservice.repository.FavoriteListRepository;
+import com.dipartimento.favservice.service.FavoriteListService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Throughput delle aggiunte concorrenti alla stessa lista al crescere dei writer: sola INSERT atomica
+// e addEvent completa (che serializza i writer sul lock della riga della lista per versione, contatori e dashboard).
+// Escluso dalla build normale: mvn test -Dgroups=load -Dtest.excludedGroups=none -Dtest=AtomicAddThroughputLoadTest
+// Report in target/load-test/atomic-add.txt
+@Tag("load")
+class AtomicAddThroughputLoadTest {
+
+    private static final long OWNER = 1L;
+    private static final int WARM_UP_OPS = Integer.getInteger("load.warm-up", 2_000);
+    private static final int OPS_PER_WRITER = Integer.getInteger("load.ops-per-writer", 1_000);
+    private static final int[] WRITERS = {1, 2, 4, 8};
+
+    private static LoadStubs stubs;
+    private static ConfigurableApplicationContext context;
+
+    @BeforeAll
+    static void start() throws Exception {
+        // eventService senza latenza: si misura la scrittura, non la validazione remota
+        stubs = LoadStubs.start(0, 0);
+        context = new SpringApplicationBuilder(FavServiceApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:atomic-add-load;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+                "--services.user.base-url=" + stubs.userService.baseUrl(),
+                "--services.event.base-url=" + stubs.eventService.baseUrl(),
+                "--logging.level.com.dipartimento.favservice=WARN");
+    }
+
+    @AfterAll
+    static void stop() {
+        if (context != null) context.close();
+        if (stubs != null) stubs.close();
+    }
+
+    @Test
+    void compareWritersOnTheSameList() throws Exception {
+        FavoriteListRepository repository = context.getBean(FavoriteListRepository.class);
+        FavoriteListService service = context.getBean(FavoriteListService.class);
+
+        StringBuilder report = new StringBuilder("path         writers      op/s\n");
+        measure(report, "insert", listId -> eventId -> repository.addEventIfOwner(listId, OWNER, eventId));
+        measure(report, "addEvent", listId -> eventId -> service.addEvent(listId, OWNER, eventId));
+
+        System.out.println(report);
+        Path out = Path.of("target", "load-test", "atomic-add.txt");
+        Files.createDirectories(out.getParent());
+        Files.writeString(out, report);
+    }
+
+    private void measure(StringBuilder report, String path, Function<UUID, LongConsumer> writeFor) throws Exception {
+        // warm-up su una lista a parte: JIT, pool di connessioni e cache degli eventi
+        UUID warmUpList = newList();
+        writeConcurrently(WRITERS[WRITERS.length - 1], WARM_UP_OPS / WRITERS[WRITERS.length - 1], writeFor.apply(warmUpList));
+
+        for (int writers : WRITERS) {
+            UUID listId = newList();
+            long opsPerSecond = writeConcurrently(writers, OPS_PER_WRITER, writeFor.apply(listId));
+            assertEquals(writers * OPS_PER_WRITER, eventCount(listId), "aggiunte perse con " + writers + " writer");
+            report.append(String.format("%-12s %7d %9d%n", path, writers, opsPerSecond));
+        }
+    }
+
+    // Ogni writer scrive opsPerWriter id distinti; restituisce le operazioni al secondo
+    private static long writeConcurrently(int writers, int opsPerWriter, LongConsumer write) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int w = 0; w < writers; w++) {
+                long first = 1L + (long) w * opsPerWriter;
+                futures.add(executor.submit(() -> {
+                    for (long eventId = first; eventId < first + opsPerWriter; eventId++) {
+                        write.accept(eventId);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            return Math.round(writers * opsPerWriter / seconds);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static UUID newList() {
+        FavoriteList list = new FavoriteList();
+        list.setName("Lista di carico");
+        list.setOwnerId(OWNER);
+        list.setVisibility(FavoriteList.Visibility.PRIVATE);
+        return context.getBean(FavoriteListRepository.class).save(list).getId();
+    }
+
+    private static int eventCount(UUID listId) {
+        return context.getBean(JdbcTemplate.class).queryForObject(
+                "select count(*) from favorite_list_events where favorite_list_id = ?", Integer.class, listId);
+    }
+}
@@ -0,0 +1,168 @@
+package com.dipartimento.favservice.load;
+
+import com.dipartimento.favservice.FavServiceApplication;
+import com.dipartimento.favservice.domain.FavoriteList;
+import com.dipartimento.favservice.repository.FavoriteListRepository;
+import com.dipartimento.favservice.util.JwtUtil;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Throughput e latenza end-to-end di favService (H2) con userService / eventService finti.
+// Escluso dalla build normale:
+//   mvn test -Dgroups=load -Dtest.excludedGroups=none -Dtest=FavoriteListLoadTest
+// Parametri (-D...): load.user-latency-ms, load.event-latency-ms, load.concurrency, load.requests,
+// load.label (default: commit corrente), load.baseline (CSV di un'esecuzione precedente da confrontare).
+// Report in target/load-test/favorites-<label>.csv
+@Tag("load")
+class FavoriteListLoadTest {
+
+    private static final long USER_LATENCY_MS = Long.getLong("load.user-latency-ms", 20);
+    private static final long EVENT_LATENCY_MS = Long.getLong("load.event-latency-ms", 30);
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 32);
+    private static final int REQUESTS = Integer.getInteger("load.requests", 1000);
+
+    private static final int USERS = 50;
+    private static final long FIRST_USER = 1_000L;
+    // id evento da 1 a EVENT_RANGE: le liste condividono parte degli eventi, come in produzione
+    private static final int EVENT_RANGE = 500;
+
+    private static LoadStubs stubs;
+    private static ConfigurableApplicationContext context;
+    private static String base;
+
+    private static final List<UUID> privateLists = new ArrayList<>();
+    private static final List<UUID> sharedLists = new ArrayList<>();
+    private static final List<String> publicTokens = new ArrayList<>();
+    private static final List<String> tokens = new ArrayList<>();
+
+    @BeforeAll
+    static void start() throws IOException {
+        stubs = LoadStubs.start(USER_LATENCY_MS, EVENT_LATENCY_MS);
+        context = new SpringApplicationBuilder(FavServiceApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:favorites-load;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+                "--services.user.base-url=" + stubs.userService.baseUrl(),
+                "--services.event.base-url=" + stubs.eventService.baseUrl(),
+                "--logging.level.com.dipartimento.favservice=WARN");
+        base = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort() + "/api/favorites";
+        seed(context.getBean(FavoriteListRepository.class));
+    }
+
+    @AfterAll
+    static void stop() {
+        if (context != null) context.close();
+        if (stubs != null) stubs.close();
+    }
+
+    @Test
+    void readHeavyAndFanOutEndpoints() throws Exception {
+        String label = System.getProperty("load.label", currentCommit());
+        LoadReport report = new LoadReport(label);
+        LoadGenerator generator = new LoadGenerator(CONCURRENCY, 50);
+
+        // letture dal DB (e dalle cache dei link pubblici), nessuna chiamata ai servizi esterni
+        run(report, generator, "read", "/lists", i -> get("/lists", i));
+        run(report, generator, "read", "/lists/{id}", i -> get("/lists/" + privateLists.get(user(i)), i));
+        run(report, generator, "read", "/lists/shared-with-me", i -> get("/lists/shared-with-me", i));
+        run(report, generator, "read", "/dashboard", i -> get("/dashboard", i));
+        run(report, generator, "read", "/lists/public?size=50", i -> get("/lists/public?size=50", i));
+        run(report, generator, "read", "/public/{token}", i -> get("/public/" + publicTokens.get(user(i)), i));
+
+        // fan-out verso userService / eventService
+        run(report, generator, "fan-out", "/lists/{id}/with-events", i -> get("/lists/" + sharedLists.get(user(i)) + "/with-events", i));
+        run(report, generator, "fan-out", "/{id}/details", i -> get("/" + sharedLists.get(user(i)) + "/details", i));
+        run(report, generator, "fan-out", "/lists/shared-with-me/with-events", i -> get("/lists/shared-with-me/with-events", i));
+        run(report, generator, "fan-out", "/public/{token}/with-events", i -> get("/public/" + publicTokens.get(user(i)) + "/with-events", i));
+        run(report, generator, "fan-out", "/lists/{id}/with-owner", i -> get("/lists/" + sharedLists.get(user(i)) + "/with-owner", i));
+        run(report, generator, "fan-out", "/my/{userId}", i -> get("/my/" + (FIRST_USER + user(i)), i));
+
+        String output = String.format("favService load test [%s] concurrency=%d requests=%d userLatency=%dms eventLatency=%dms%n%s",
+                label, CONCURRENCY, REQUESTS, USER_LATENCY_MS, EVENT_LATENCY_MS, report.table());
+        String baseline = System.getProperty("load.baseline");
+        if (baseline != null) {
+            output += System.lineSeparator() + report.compareWith(Path.of(baseline));
+        }
+        System.out.println(output);
+
+        Path directory = Path.of("target", "load-test");
+        Path csv = report.writeCsv(directory);
+        Files.writeString(directory.resolve("favorites-" + label + ".txt"), output);
+        System.out.println("Report: " + csv.toAbsolutePath());
+    }
+
+    private static void run(LoadReport report, LoadGenerator generator, String scenario, String endpoint,
+                            IntFunction<HttpRequest> requestFor) throws Exception {
+        LoadGenerator.Result result = generator.run(endpoint, REQUESTS, requestFor);
+        assertEquals(0, result.errors(), "errori su " + endpoint);
+        report.add(scenario, result);
+    }
+
+    // Utenti e liste a rotazione: la richiesta i-esima è dell'utente i % USERS
+    private static int user(int request) {
+        return request % USERS;
+    }
+
+    private static HttpRequest get(String path, int request) {
+        return HttpRequest.newBuilder(URI.create(base + path))
+                .header("Authorization", "Bearer " + tokens.get(user(request)))
+                .GET()
+                .build();
+    }
+
+    // Per ogni utente: una lista privata, una condivisa con i 5 utenti successivi, una pubblica
+    private static void seed(FavoriteListRepository repository) {
+        for (int u = 0; u < USERS; u++) {
+            long userId = FIRST_USER + u;
+            tokens.add(JwtUtil.generateToken(userId, "user" + userId, "USER"));
+
+            FavoriteList privateList = list("Privata " + u, userId, FavoriteList.Visibility.PRIVATE, u * 7L, 10);
+            FavoriteList sharedList = list("Condivisa " + u, userId, FavoriteList.Visibility.SHARED, u * 11L, 20);
+            int owner = u;
+            sharedList.setSharedWith(LongStream.rangeClosed(1, 5).map(k -> FIRST_USER + (owner + k) % USERS).boxed().toList());
+            FavoriteList publicList = list("Pubblica " + u, userId, FavoriteList.Visibility.PUBLIC, u * 13L, 15);
+            publicList.setCapabilityToken(UUID.randomUUID().toString());
+
+            privateLists.add(repository.save(privateList).getId());
+            sharedLists.add(repository.save(sharedList).getId());
+            publicTokens.add(repository.save(publicList).getCapabilityToken());
+        }
+    }
+
+    private static FavoriteList list(String name, long ownerId, FavoriteList.Visibility visibility, long firstEvent, int events) {
+        FavoriteList list = new FavoriteList();
+        list.setName(name);
+        list.setOwnerId(ownerId);
+        list.setVisibility(visibility);
+        list.setEventIds(LongStream.range(firstEvent, firstEvent + events).map(id -> id % EVENT_RANGE + 1).boxed().toList());
+        return list;
+    }
+
+    private static String currentCommit() {
+        try {
+            Process git = new ProcessBuilder("git", "rev-parse", "--short", "HEAD").start();
+            String commit = new String(git.getInputStream().readAllBytes()).trim();
+            return git.waitFor(5, TimeUnit.SECONDS) && git.exitValue() == 0 && !commit.isEmpty() ? commit : "local";
+        } catch (IOException | InterruptedException e) {
+            return "local";
+        }
+    }
+}
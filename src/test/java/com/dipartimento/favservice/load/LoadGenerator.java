@@ -0,0 +1,75 @@
+package com.dipartimento.favservice.load;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+// Generatore di carico a ciclo chiuso: "concurrency" client inviano la richiesta successiva appena
+// ricevono la risposta. La richiesta i-esima viene costruita da requestFor(i) (utenti / liste a rotazione).
+final class LoadGenerator {
+
+    record Result(String endpoint, int requests, int errors, double throughput,
+                  double p50Ms, double p90Ms, double p99Ms, double maxMs) {
+    }
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final int concurrency;
+    private final int warmupRequests;
+
+    LoadGenerator(int concurrency, int warmupRequests) {
+        this.concurrency = concurrency;
+        this.warmupRequests = warmupRequests;
+    }
+
+    Result run(String endpoint, int requests, IntFunction<HttpRequest> requestFor) throws Exception {
+        for (int i = 0; i < warmupRequests; i++) {
+            client.send(requestFor.apply(i), HttpResponse.BodyHandlers.discarding());
+        }
+
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int w = 0; w < concurrency; w++) {
+                workers.add(executor.submit(() -> {
+                    for (int i = next.getAndIncrement(); i < requests; i = next.getAndIncrement()) {
+                        long t0 = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(requestFor.apply(i), HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) errors.incrementAndGet();
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies[i] = System.nanoTime() - t0;
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Arrays.sort(latencies);
+        return new Result(endpoint, requests, errors.get(), requests / seconds,
+                percentileMs(latencies, 0.50), percentileMs(latencies, 0.90), percentileMs(latencies, 0.99),
+                latencies[latencies.length - 1] / 1e6);
+    }
+
+    private static double percentileMs(long[] sorted, double percentile) {
+        return sorted[(int) Math.ceil(sorted.length * percentile) - 1] / 1e6;
+    }
+}
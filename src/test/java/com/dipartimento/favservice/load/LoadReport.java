@@ -0,0 +1,86 @@
+package com.dipartimento.favservice.load;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Risultati di un'esecuzione, etichettati (es. commit). Il CSV di un'esecuzione precedente
+// può essere passato come baseline per confrontare throughput e p99 endpoint per endpoint.
+final class LoadReport {
+
+    private static final String CSV_HEADER = "label,scenario,endpoint,requests,errors,throughput,p50_ms,p90_ms,p99_ms,max_ms";
+
+    private record Row(String scenario, LoadGenerator.Result result) {
+    }
+
+    private final String label;
+    private final List<Row> rows = new ArrayList<>();
+
+    LoadReport(String label) {
+        this.label = label;
+    }
+
+    void add(String scenario, LoadGenerator.Result result) {
+        rows.add(new Row(scenario, result));
+    }
+
+    String table() {
+        StringBuilder table = new StringBuilder(String.format(Locale.ROOT, "%-10s %-44s %9s %8s %8s %8s %8s %7s%n",
+                "scenario", "endpoint", "req/s", "p50ms", "p90ms", "p99ms", "maxms", "errors"));
+        for (Row row : rows) {
+            LoadGenerator.Result r = row.result();
+            table.append(String.format(Locale.ROOT, "%-10s %-44s %9.1f %8.1f %8.1f %8.1f %8.1f %7d%n",
+                    row.scenario(), r.endpoint(), r.throughput(), r.p50Ms(), r.p90Ms(), r.p99Ms(), r.maxMs(), r.errors()));
+        }
+        return table.toString();
+    }
+
+    Path writeCsv(Path directory) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add(CSV_HEADER);
+        for (Row row : rows) {
+            LoadGenerator.Result r = row.result();
+            lines.add(String.format(Locale.ROOT, "%s,%s,%s,%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f", label, row.scenario(),
+                    r.endpoint(), r.requests(), r.errors(), r.throughput(), r.p50Ms(), r.p90Ms(), r.p99Ms(), r.maxMs()));
+        }
+        Files.createDirectories(directory);
+        Path csv = directory.resolve("favorites-" + label + ".csv");
+        Files.write(csv, lines);
+        return csv;
+    }
+
+    // Variazione percentuale rispetto alla baseline (throughput più alto e p99 più basso sono miglioramenti)
+    String compareWith(Path baselineCsv) throws IOException {
+        Map<String, String[]> baseline = new HashMap<>();
+        String baselineLabel = "baseline";
+        for (String line : Files.readAllLines(baselineCsv)) {
+            if (line.equals(CSV_HEADER) || line.isBlank()) continue;
+            String[] fields = line.split(",");
+            baselineLabel = fields[0];
+            baseline.put(fields[2], fields);
+        }
+
+        StringBuilder comparison = new StringBuilder(String.format(Locale.ROOT, "%s -> %s%n%-44s %24s %25s%n",
+                baselineLabel, label, "endpoint", "req/s", "p99ms"));
+        for (Row row : rows) {
+            LoadGenerator.Result r = row.result();
+            String[] base = baseline.get(r.endpoint());
+            if (base == null) continue;
+            double baseThroughput = Double.parseDouble(base[5]);
+            double baseP99 = Double.parseDouble(base[8]);
+            comparison.append(String.format(Locale.ROOT, "%-44s %8.1f %8.1f %+5.0f%% %8.1f %8.1f %+5.0f%%%n", r.endpoint(),
+                    baseThroughput, r.throughput(), change(baseThroughput, r.throughput()),
+                    baseP99, r.p99Ms(), change(baseP99, r.p99Ms())));
+        }
+        return comparison.toString();
+    }
+
+    private static double change(double before, double after) {
+        return before == 0 ? 0 : (after - before) * 100 / before;
+    }
+}
@@ -0,0 +1,50 @@
+package com.dipartimento.favservice.load;
+
+import com.dipartimento.favservice.support.StubHttpServer;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+// userService ed eventService finti per i test di carico, con latenza fissa per risposta
+final class LoadStubs implements AutoCloseable {
+
+    final StubHttpServer userService;
+    final StubHttpServer eventService;
+
+    private LoadStubs(StubHttpServer userService, StubHttpServer eventService) {
+        this.userService = userService;
+        this.eventService = eventService;
+    }
+
+    static LoadStubs start(long userLatencyMs, long eventLatencyMs) throws IOException {
+        StubHttpServer userService = new StubHttpServer()
+                .route("/api/users/(\\d+)/exists", req -> StubHttpServer.Response.json("true"))
+                .route("/api/users/(\\d+)/username", req -> StubHttpServer.Response.text("user" + req.matcher().group(1)))
+                .delay(userLatencyMs);
+        StubHttpServer eventService = new StubHttpServer()
+                .route("/events/public/byIds", req -> StubHttpServer.Response.json(eventsJson(req.body())))
+                .route("/events/public/(\\d+)", req -> StubHttpServer.Response.json(eventJson(req.matcher().group(1))))
+                .delay(eventLatencyMs);
+        return new LoadStubs(userService, eventService);
+    }
+
+    @Override
+    public void close() {
+        userService.close();
+        eventService.close();
+    }
+
+    private static String eventsJson(String requestBody) {
+        String ids = requestBody.replaceAll("[\\[\\]\\s]", "");
+        if (ids.isEmpty()) return "[]";
+        return Arrays.stream(ids.split(","))
+                .map(LoadStubs::eventJson)
+                .collect(Collectors.joining(",", "[", "]"));
+    }
+
+    private static String eventJson(String id) {
+        return "{\"id\":" + id + ",\"name\":\"Evento " + id + "\",\"location\":\"Roma\",\"price\":10.0,"
+                + "\"capacity\":100,\"status\":\"ACTIVE\",\"organizerId\":1}";
+    }
+}
@@ -0,0 +1,112 @@
+package com.dipartimento.favservice.load;
+
+import com.dipartimento.favservice.FavServiceApplication;
+import com.dipartimento.favservice.domain.FavoriteList;
+import com.dipartimento.favservice.repository.FavoriteListRepository;
+import com.dipartimento.favservice.util.JwtUtil;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Confronto platform thread / virtual thread sugli endpoint with-events.
+// Escluso dalla build normale: mvn test -Dgroups=load -Dtest.excludedGroups=none
+@Tag("load")
+class VirtualThreadsLoadTest {
+
+    private static final long STUB_DELAY_MS = 50;
+    private static final int CLIENT_CONCURRENCY = 32;
+    private static final int REQUESTS_PER_ENDPOINT = 400;
+
+    private static LoadStubs stubs;
+
+    @BeforeAll
+    static void startStubs() throws Exception {
+        stubs = LoadStubs.start(STUB_DELAY_MS, STUB_DELAY_MS);
+    }
+
+    @AfterAll
+    static void stopStubs() {
+        stubs.close();
+    }
+
+    @Test
+    void compareWithEventsEndpoints() throws Exception {
+        String platform = run(false);
+        String virtual = run(true);
+
+        String report = "threads    endpoint                                         req/s      p50ms  p99ms  errors\n"
+                + platform + virtual;
+        System.out.println(report);
+        Path out = Path.of("target", "load-test", "virtual-threads.txt");
+        Files.createDirectories(out.getParent());
+        Files.writeString(out, report);
+    }
+
+    private String run(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(FavServiceApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:load-" + virtualThreads + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--server.tomcat.threads.max=16",
+                        "--services.user.base-url=" + stubs.userService.baseUrl(),
+                        "--services.event.base-url=" + stubs.eventService.baseUrl(),
+                        // niente cache: ogni richiesta paga la latenza dei servizi esterni
+                        "--services.event.cache.max-size=0",
+                        "--services.user.name-cache.max-size=0",
+                        "--logging.level.com.dipartimento.favservice=WARN")) {
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            FavoriteListRepository repository = context.getBean(FavoriteListRepository.class);
+
+            UUID ownedListId = null;
+            for (int i = 0; i < 10; i++) {
+                FavoriteList list = new FavoriteList();
+                list.setName("Lista " + i);
+                list.setOwnerId(1L + i % 3);
+                list.setVisibility(FavoriteList.Visibility.SHARED);
+                list.setEventIds(LongStream.rangeClosed(i * 5L, i * 5L + 20).boxed().collect(Collectors.toList()));
+                list.setSharedWith(new ArrayList<>(List.of(100L)));
+                FavoriteList saved = repository.save(list);
+                if (i == 0) ownedListId = saved.getId();
+            }
+
+            String base = "http://localhost:" + port + "/api/favorites";
+            String label = virtualThreads ? "virtual " : "platform";
+            return measure(label, base + "/lists/" + ownedListId + "/with-events", JwtUtil.generateToken(1L, "user1", "USER"))
+                    + measure(label, base + "/lists/shared-with-me/with-events", JwtUtil.generateToken(100L, "user100", "USER"));
+        }
+    }
+
+    private String measure(String label, String url, String token) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+
+        String endpoint = url.substring(url.indexOf("/api/")).replaceAll("[0-9a-f]{8}-[0-9a-f-]{27}", "{id}");
+        LoadGenerator.Result result = new LoadGenerator(CLIENT_CONCURRENCY, 20)
+                .run(endpoint, REQUESTS_PER_ENDPOINT, i -> request);
+
+        assertEquals(0, result.errors(), "errori su " + url);
+
+        return String.format("%s   %-48s %8.1f %6.0f %6.0f %7d%n", label, endpoint,
+                result.throughput(), result.p50Ms(), result.p99Ms(), result.errors());
+    }
+}
@@ -0,0 +1,84 @@
+package com.dipartimento.favservice.repository;
+
+import com.dipartimento.favservice.domain.FavoriteList;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class FavoriteListRepositoryTest {
+
+    private static final int LISTS = 1_000;
+    private static final long OWNER = 1L;
+    private static final long SHARED_USER = 2L;
+
+    @Autowired
+    private FavoriteListRepository repository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @BeforeEach
+    void insertLists() {
+        List<FavoriteList> lists = new ArrayList<>();
+        for (int i = 0; i < LISTS; i++) {
+            FavoriteList list = new FavoriteList();
+            list.setName("Lista " + i);
+            list.setOwnerId(OWNER);
+            list.setVisibility(FavoriteList.Visibility.PUBLIC);
+            list.setEventIds(new ArrayList<>(List.of((long) i, i + 1L, i + 2L)));
+            list.setSharedWith(new ArrayList<>(List.of(SHARED_USER, 3L)));
+            lists.add(list);
+        }
+        repository.saveAll(lists);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void findByOwnerIdLoadsCollectionsInConstantQueries() throws Exception {
+        assertQueryCount(3, () -> repository.findByOwnerId(OWNER));
+    }
+
+    @Test
+    void findByVisibilityLoadsCollectionsInConstantQueries() throws Exception {
+        assertQueryCount(3, () -> repository.findByVisibility(FavoriteList.Visibility.PUBLIC));
+    }
+
+    @Test
+    void findBySharedWithContainsLoadsCollectionsInConstantQueries() throws Exception {
+        assertQueryCount(3, () -> repository.findBySharedWithContains(SHARED_USER));
+    }
+
+    // lista + eventIds + sharedWith, indipendentemente dal numero di liste
+    private void assertQueryCount(long expected, Supplier<List<FavoriteList>> query) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<FavoriteList> lists = query.get();
+        // come nel controller: Jackson tocca entrambe le collezioni lazy di ogni lista
+        String json = objectMapper.writeValueAsString(lists);
+
+        assertEquals(LISTS, lists.size());
+        assertEquals(expected, statistics.getPrepareStatementCount(), "query eseguite per " + json.length() + " byte di JSON");
+    }
+}
@@ -0,0 +1,47 @@
+package com.dipartimento.favservice.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Verifica con EXPLAIN (H2 in modalità PostgreSQL) che le query più frequenti usino gli indici delle migrazioni Flyway
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest
+class FavoriteListSchemaTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void capabilityTokenLookupUsesUniqueIndex() {
+        assertUsesIndex("ux_favorite_lists_capability_token",
+                "select * from favorite_lists where capability_token = 'abc'");
+    }
+
+    @Test
+    void ownerLookupUsesIndex() {
+        assertUsesIndex("ix_favorite_lists_owner_id",
+                "select * from favorite_lists where owner_id = 1");
+    }
+
+    @Test
+    void sharedWithLookupUsesUserListIndex() {
+        assertUsesIndex("ix_favorite_list_shares_user_list",
+                "select f.* from favorite_lists f join favorite_list_shares s on s.favorite_list_id = f.id where s.user_id = 1");
+    }
+
+    @Test
+    void eventReverseLookupUsesEventListIndex() {
+        assertUsesIndex("ix_favorite_list_events_event_list",
+                "select favorite_list_id from favorite_list_events where event_id = 1");
+    }
+
+    private void assertUsesIndex(String index, String query) {
+        String plan = String.join("\n", jdbcTemplate.queryForList("explain " + query, String.class));
+        assertTrue(plan.contains(index), "indice " + index + " non usato:\n" + plan);
+    }
+}
@@ -0,0 +1,102 @@
+package com.dipartimento.favservice.repository;
+
+import com.dipartimento.favservice.domain.FavoriteList;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Costo in scrittura di una modifica da un elemento su una lista con 5000 eventi:
+// con le tabelle a insieme è una sola INSERT / DELETE (più l'update della versione), non la riscrittura della collezione
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class FavoriteListWriteCostTest {
+
+    private static final int EVENTS = 5_000;
+
+    @Autowired
+    private FavoriteListRepository repository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private UUID listId;
+
+    @BeforeEach
+    void insertLargeList() {
+        FavoriteList list = new FavoriteList();
+        list.setName("Lista grande");
+        list.setOwnerId(1L);
+        list.setVisibility(FavoriteList.Visibility.PRIVATE);
+        list.setEventIds(LongStream.range(0, EVENTS).boxed().collect(Collectors.toList()));
+        listId = repository.save(list).getId();
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void addingOneEventIsASingleInsert() {
+        assertSingleElementWrite("addEvent", list -> list.getEventIds().add((long) EVENTS));
+    }
+
+    @Test
+    void removingOneEventIsASingleDelete() {
+        assertSingleElementWrite("removeEvent", list -> list.getEventIds().remove(EVENTS / 2L));
+    }
+
+    @Test
+    void addingAnExistingEventWritesNothing() {
+        Statistics statistics = statistics();
+        FavoriteList list = load();
+        statistics.clear();
+
+        list.getEventIds().add(0L);
+        entityManager.flush();
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(EVENTS, load().getEventIds().size());
+    }
+
+    // INSERT / DELETE dell'elemento + update della versione della lista
+    private void assertSingleElementWrite(String operation, Consumer<FavoriteList> change) {
+        Statistics statistics = statistics();
+        FavoriteList list = load();
+        statistics.clear();
+
+        change.accept(list);
+        entityManager.flush();
+
+        assertEquals(2, statistics.getPrepareStatementCount(), operation + " su " + EVENTS + " eventi");
+        assertEquals(1, statistics.getEntityUpdateCount());
+        assertEquals(0, statistics.getCollectionRecreateCount());
+        assertTrue(statistics.getCollectionUpdateCount() <= 1);
+    }
+
+    private FavoriteList load() {
+        entityManager.clear();
+        FavoriteList list = repository.findById(listId).orElseThrow();
+        Hibernate.initialize(list.getEventIds());
+        return list;
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
@@ -0,0 +1,126 @@
+package com.dipartimento.favservice.service;
+
+import com.dipartimento.favservice.domain.FavoriteList;
+import com.dipartimento.favservice.dto.UserRegisteredEvent;
+import com.dipartimento.favservice.repository.FavoriteListRepository;
+import com.dipartimento.favservice.support.InMemoryUserEventBroker;
+import com.dipartimento.favservice.util.JwtUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Liste di default create dagli eventi di registrazione (broker in memoria) e dal backfill;
+// dopo il backfill (provision-on-read=false) GET /lists non scrive
+@SpringBootTest(properties = "favorites.default-lists.provision-on-read=false")
+@AutoConfigureMockMvc
+class DefaultListsProvisionerTest {
+
+    private static final long FIRST_USER = 9_010L;
+    private static final long USER_WITH_LISTS = 9_020L;
+    private static final long FIRST_BACKFILL_USER = 200_000L;
+    private static final int BACKFILL_USERS = 5_000;
+
+    @Autowired
+    private DefaultListsProvisioner provisioner;
+
+    @Autowired
+    private FavoriteListRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @AfterEach
+    void deleteLists() {
+        jdbcTemplate.update("delete from favorite_lists where owner_id between ? and ? or owner_id >= ?",
+                FIRST_USER, USER_WITH_LISTS, FIRST_BACKFILL_USER);
+    }
+
+    @Test
+    void registrationEventsProvisionDefaultListsInBatches() {
+        InMemoryUserEventBroker broker = new InMemoryUserEventBroker(4, provisioner::onUsersRegistered);
+        for (long userId = FIRST_USER; userId < FIRST_USER + 10; userId++) {
+            broker.publish(new UserRegisteredEvent(userId));
+        }
+        // riconsegna dello stesso messaggio
+        broker.publish(new UserRegisteredEvent(FIRST_USER));
+
+        assertEquals(3, broker.drain());
+
+        for (long userId = FIRST_USER; userId < FIRST_USER + 10; userId++) {
+            assertEquals(3, listCount(userId), "liste dell'utente " + userId);
+        }
+    }
+
+    @Test
+    void usersWithListsAreNotProvisioned() {
+        FavoriteList list = new FavoriteList();
+        list.setName("Concerti");
+        list.setOwnerId(USER_WITH_LISTS);
+        list.setVisibility(FavoriteList.Visibility.PRIVATE);
+        repository.save(list);
+
+        assertEquals(0, provisioner.onUsersRegistered(List.of(new UserRegisteredEvent(USER_WITH_LISTS))));
+        assertEquals(1, listCount(USER_WITH_LISTS));
+    }
+
+    @Test
+    void getMyListsDoesNotCreateLists() throws Exception {
+        mockMvc.perform(get("/api/favorites/lists")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + JwtUtil.generateToken(FIRST_USER, "user", "USER")))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[]"));
+
+        assertEquals(0, listCount(FIRST_USER));
+    }
+
+    @Test
+    void registrationEndpointRequiresAdmin() throws Exception {
+        String body = "[{\"userId\":" + FIRST_USER + "}]";
+
+        mockMvc.perform(post("/api/favorites/admin/user-events/registered")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + JwtUtil.generateToken(FIRST_USER, "user", "USER"))
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/favorites/admin/user-events/registered")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + JwtUtil.generateToken(1L, "admin", "ADMIN"))
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.provisioned").value(1));
+
+        assertEquals(3, listCount(FIRST_USER));
+    }
+
+    @Test
+    void backfillProvisionsThousandsOfUsers() {
+        List<Long> userIds = LongStream.range(FIRST_BACKFILL_USER, FIRST_BACKFILL_USER + BACKFILL_USERS).boxed().toList();
+
+        assertEquals(BACKFILL_USERS, provisioner.backfill(userIds));
+        assertEquals(3 * BACKFILL_USERS, jdbcTemplate.queryForObject(
+                "select count(*) from favorite_lists where owner_id >= ?", Integer.class, FIRST_BACKFILL_USER));
+        // una seconda esecuzione non crea nulla
+        assertEquals(0, provisioner.backfill(userIds));
+    }
+
+    private int listCount(long userId) {
+        return jdbcTemplate.queryForObject("select count(*) from favorite_lists where owner_id = ?", Integer.class, userId);
+    }
+}
@@ -0,0 +1,109 @@
+package com.dipartimento.favservice.service;
+
+import com.dipartimento.favservice.domain.FavoriteList;
+import com.dipartimento.favservice.repository.FavoriteListRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Primo accesso a GET /lists: le liste di default vengono create una sola volta anche con molte
+// richieste concorrenti dello stesso utente; dopo il primo accesso resta una sola query
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class DefaultListsProvisioningTest {
+
+    private static final long OWNER = 9_009L;
+
+    @Autowired
+    private FavoriteListService service;
+
+    @Autowired
+    private FavoriteListRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void deleteLists() {
+        jdbcTemplate.update("delete from favorite_lists where owner_id = ?", OWNER);
+    }
+
+    @Test
+    void concurrentFirstAccessCreatesDefaultListsOnce() throws Exception {
+        int callers = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<List<FavoriteList>>> futures = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return service.getOrCreateMyLists(OWNER);
+                }));
+            }
+            start.countDown();
+            for (Future<List<FavoriteList>> future : futures) {
+                assertEquals(3, future.get().size());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(3, listCount());
+        assertEquals(List.of("PRIVATE", "PUBLIC", "SHARED"), jdbcTemplate.queryForList(
+                "select default_kind from favorite_lists where owner_id = ? order by default_kind", String.class, OWNER));
+    }
+
+    @Test
+    void firstAccessIsOneInsertAndLaterAccessesOneQuery() {
+        Statistics statistics = statistics();
+
+        statistics.clear();
+        assertEquals(3, service.getOrCreateMyLists(OWNER).size());
+        // select vuota, INSERT delle tre liste, select
+        assertEquals(3, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        assertEquals(3, service.getOrCreateMyLists(OWNER).size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    // Un'altra istanza che arriva dopo (stesso utente, nessun coordinamento in memoria) non crea duplicati
+    @Test
+    void uniqueIndexRejectsDuplicateDefaultLists() {
+        service.createDefaultListsForUser(OWNER);
+
+        int created = repository.insertDefaultLists(OWNER,
+                UUID.randomUUID(), UUID.randomUUID().toString(),
+                UUID.randomUUID(), UUID.randomUUID().toString(),
+                UUID.randomUUID(), UUID.randomUUID().toString());
+
+        assertEquals(0, created);
+        assertEquals(3, listCount());
+    }
+
+    private int listCount() {
+        return jdbcTemplate.queryForObject("select count(*) from favorite_lists where owner_id = ?", Integer.class, OWNER);
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
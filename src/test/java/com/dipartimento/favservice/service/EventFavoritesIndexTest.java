@@ -0,0 +1,254 @@
+package com.dipartimento.favservice.service;
+
+import com.dipartimento.favservice.domain.FavoriteList;
+import com.dipartimento.favservice.dto.EventFavoriteCount;
+import com.dipartimento.favservice.dto.FavoriteListEventsBulkRequest;
+import com.dipartimento.favservice.repository.FavoriteListRepository;
+import com.dipartimento.favservice.support.StubHttpServer;
+import com.dipartimento.favservice.util.JwtUtil;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Contatori per evento (liste e utenti) aggiornati da aggiunte, rimozioni ed eliminazioni di liste,
+// sempre uguali a un conteggio completo su favorite_list_events
+@SpringBootTest
+@AutoConfigureMockMvc
+class EventFavoritesIndexTest {
+
+    private static final long OWNER = 9_024L;
+    private static final long OTHER_OWNER = 9_025L;
+    private static final long EVENT = 900_001L;
+    private static final long OTHER_EVENT = 900_002L;
+
+    private static final StubHttpServer eventService = startEventService();
+
+    @Autowired
+    private FavoriteListService service;
+
+    @Autowired
+    private EventFavoritesIndex eventIndex;
+
+    @Autowired
+    private FavoriteListRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @DynamicPropertySource
+    static void eventServiceUrl(DynamicPropertyRegistry registry) {
+        registry.add("services.event.base-url", eventService::baseUrl);
+    }
+
+    @AfterAll
+    static void stopEventService() {
+        eventService.close();
+    }
+
+    @AfterEach
+    void deleteLists() {
+        jdbcTemplate.update("delete from favorite_lists where owner_id in (?, ?)", OWNER, OTHER_OWNER);
+        jdbcTemplate.update("delete from favorite_event_counts where event_id in (?, ?)", EVENT, OTHER_EVENT);
+    }
+
+    @Test
+    void countsFollowAddsRemovesAndDeletes() {
+        UUID first = createList(OWNER);
+        UUID second = createList(OWNER);
+        UUID other = createList(OTHER_OWNER);
+
+        service.addEvent(first, OWNER, EVENT);
+        service.addEvent(second, OWNER, EVENT);
+        service.addEvent(other, OTHER_OWNER, EVENT);
+        // già presente: nessun cambiamento
+        service.addEvent(other, OTHER_OWNER, EVENT);
+        assertCounts(EVENT, 3, 2);
+
+        service.removeEvent(first, OWNER, EVENT);
+        assertCounts(EVENT, 2, 2);
+
+        FavoriteListEventsBulkRequest bulk = new FavoriteListEventsBulkRequest();
+        bulk.setAdd(List.of(OTHER_EVENT));
+        bulk.setRemove(List.of(EVENT));
+        service.updateEvents(other, OTHER_OWNER, bulk, null);
+        assertCounts(EVENT, 1, 1);
+        assertCounts(OTHER_EVENT, 1, 1);
+
+        service.addEvent(first, OWNER, OTHER_EVENT);
+        service.deleteList(second, OWNER);
+        assertCounts(EVENT, 0, 0);
+        assertCounts(OTHER_EVENT, 2, 2);
+        assertMatchesRecount(EVENT, OTHER_EVENT);
+    }
+
+    // Aggiunte concorrenti dello stesso evento in più liste dello stesso utente: l'utente è contato una volta
+    @Test
+    void concurrentAddsCountTheOwnerOnce() throws Exception {
+        int lists = 8;
+        List<UUID> listIds = new ArrayList<>();
+        for (int i = 0; i < lists; i++) {
+            listIds.add(createList(OWNER));
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(lists);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (UUID listId : listIds) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return service.addEvent(listId, OWNER, EVENT);
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertCounts(EVENT, lists, 1);
+        assertMatchesRecount(EVENT);
+    }
+
+    // Eliminazioni, aggiunte e modifiche in blocco concorrenti sugli stessi eventi: tutte le scritture bloccano
+    // lista, contatori e dashboard nello stesso ordine, nessuna va in deadlock e i contatori restano esatti
+    @Test
+    void concurrentDeletesAndUpdatesKeepCountsExact() throws Exception {
+        List<UUID> listIds = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            UUID listId = createList(i % 2 == 0 ? OWNER : OTHER_OWNER);
+            service.addEvent(listId, i % 2 == 0 ? OWNER : OTHER_OWNER, EVENT);
+            listIds.add(listId);
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(listIds.size());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < listIds.size(); i++) {
+                UUID listId = listIds.get(i);
+                long owner = i % 2 == 0 ? OWNER : OTHER_OWNER;
+                int operation = i % 4;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    switch (operation) {
+                        case 0, 1 -> service.deleteList(listId, owner);
+                        case 2 -> service.addEvent(listId, owner, OTHER_EVENT);
+                        default -> {
+                            FavoriteListEventsBulkRequest bulk = new FavoriteListEventsBulkRequest();
+                            bulk.setAdd(List.of(OTHER_EVENT));
+                            bulk.setRemove(List.of(EVENT));
+                            service.updateEvents(listId, owner, bulk, null);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // EVENT resta nelle due liste di OWNER a cui è stato aggiunto OTHER_EVENT
+        assertCounts(EVENT, 2, 1);
+        assertCounts(OTHER_EVENT, 4, 2);
+        assertMatchesRecount(EVENT, OTHER_EVENT);
+    }
+
+    @Test
+    void countsEndpointReturnsManyEventsInOneCall() throws Exception {
+        UUID listId = createList(OWNER);
+        service.addEvent(listId, OWNER, EVENT);
+        String bearer = "Bearer " + JwtUtil.generateToken(1L, "eventService", "ADMIN");
+
+        mockMvc.perform(post("/api/favorites/events/counts").header(HttpHeaders.AUTHORIZATION, bearer)
+                        .contentType(MediaType.APPLICATION_JSON).content("[" + EVENT + "," + OTHER_EVENT + "]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].eventId").value(EVENT))
+                .andExpect(jsonPath("$[0].lists").value(1))
+                .andExpect(jsonPath("$[0].users").value(1))
+                .andExpect(jsonPath("$[1].lists").value(0));
+
+        mockMvc.perform(get("/api/favorites/admin/events/{eventId}/lists", EVENT).header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0]").value(listId.toString()));
+        mockMvc.perform(get("/api/favorites/admin/events/{eventId}/lists", EVENT)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + JwtUtil.generateToken(OWNER, "owner", "USER")))
+                .andExpect(status().isForbidden());
+    }
+
+    private void assertCounts(long eventId, long lists, long users) {
+        EventFavoriteCount count = eventIndex.getCounts(List.of(eventId)).get(0);
+        assertEquals(lists, count.getLists(), "liste con l'evento " + eventId);
+        assertEquals(users, count.getUsers(), "utenti con l'evento " + eventId);
+    }
+
+    private void assertMatchesRecount(long... eventIds) {
+        for (long eventId : eventIds) {
+            Map<String, Object> recount = jdbcTemplate.queryForMap("select count(*) as lists, count(distinct f.owner_id) as users " +
+                    "from favorite_list_events e join favorite_lists f on f.id = e.favorite_list_id where e.event_id = ?", eventId);
+            assertCounts(eventId, ((Number) recount.get("lists")).longValue(), ((Number) recount.get("users")).longValue());
+        }
+    }
+
+    private UUID createList(long ownerId) {
+        FavoriteList list = new FavoriteList();
+        list.setName("Preferiti");
+        list.setOwnerId(ownerId);
+        list.setVisibility(FavoriteList.Visibility.PRIVATE);
+        return repository.save(list).getId();
+    }
+
+    private static StubHttpServer startEventService() {
+        try {
+            return new StubHttpServer()
+                    .route("/events/public/byIds", req -> StubHttpServer.Response.json(Arrays.stream(
+                                    req.body().replaceAll("[\\[\\]\\s]", "").split(","))
+                            .filter(id -> !id.isEmpty())
+                            .map(id -> "{\"id\":" + id + ",\"name\":\"Evento " + id + "\",\"status\":\"ACTIVE\"}")
+                            .collect(Collectors.joining(",", "[", "]"))))
+                    .route("/events/public/(\\d+)", req -> StubHttpServer.Response.json(
+                            "{\"id\":" + req.matcher().group(1) + ",\"name\":\"Evento\",\"location\":\"Roma\","
+                                    + "\"price\":10.0,\"capacity\":100,\"status\":\"ACTIVE\",\"organizerId\":1}"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.dipartimento.favservice.service;
+
+import com.dipartimento.favservice.domain.FavoriteList;
+import com.dipartimento.favservice.dto.FavoriteListEventsBulkRequest;
+import com.dipartimento.favservice.dto.FavoriteListEventsBulkResult;
+import com.dipartimento.favservice.repository.FavoriteListRepository;
+import com.dipartimento.favservice.support.StubHttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class FavoriteListBulkEventsTest {
+
+    private static final long OWNER = 9_002L;
+    // eventService conosce solo gli eventi con id < 1000
+    private static final long UNKNOWN_EVENT = 5_000L;
+
+    private static final StubHttpServer eventService = startEventService();
+
+    @Autowired
+    private FavoriteListService service;
+
+    @Autowired
+    private FavoriteListRepository repository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private UUID listId;
+
+    @DynamicPropertySource
+    static void eventServiceUrl(DynamicPropertyRegistry registry) {
+        registry.add("services.event.base-url", eventService::baseUrl);
+    }
+
+    @AfterAll
+    static void stopEventService() {
+        eventService.close();
+    }
+
+    @BeforeEach
+    void createList() {
+        FavoriteList list = new FavoriteList();
+        list.setName("Calendario");
+        list.setOwnerId(OWNER);
+        list.setVisibility(FavoriteList.Visibility.PRIVATE);
+        list.setEventIds(List.of(1L, 2L));
+        listId = repository.save(list).getId();
+        eventService.resetCount();
+    }
+
+    @AfterEach
+    void deleteList() {
+        repository.deleteById(listId);
+    }
+
+    @Test
+    void reportsPerIdResultsWithOneValidationCall() {
+        FavoriteListEventsBulkRequest request = new FavoriteListEventsBulkRequest();
+        request.setAdd(List.of(2L, 3L, 4L, 4L, UNKNOWN_EVENT));
+        request.setRemove(List.of(1L, 7L));
+
+        Map<Long, FavoriteListEventsBulkResult.Status> results = service.updateEvents(listId, OWNER, request, null).stream()
+                .collect(Collectors.toMap(FavoriteListEventsBulkResult::getEventId, FavoriteListEventsBulkResult::getStatus));
+
+        assertEquals(Map.of(
+                2L, FavoriteListEventsBulkResult.Status.ALREADY_PRESENT,
+                3L, FavoriteListEventsBulkResult.Status.ADDED,
+                4L, FavoriteListEventsBulkResult.Status.ADDED,
+                UNKNOWN_EVENT, FavoriteListEventsBulkResult.Status.EVENT_NOT_FOUND,
+                1L, FavoriteListEventsBulkResult.Status.REMOVED,
+                7L, FavoriteListEventsBulkResult.Status.NOT_PRESENT), results);
+        assertEquals(1, eventService.requestCount());
+        assertEquals(Set.of(2L, 3L, 4L), eventIds());
+    }
+
+    @Test
+    void rejectsNonOwnerWithoutCallingEventService() {
+        FavoriteListEventsBulkRequest request = new FavoriteListEventsBulkRequest();
+        request.setAdd(List.of(10L));
+
+        assertThrows(RuntimeException.class, () -> service.updateEvents(listId, OWNER + 1, request, null));
+        assertEquals(0, eventService.requestCount());
+        assertEquals(Set.of(1L, 2L), eventIds());
+    }
+
+    private Set<Long> eventIds() {
+        return transactionTemplate.execute(status -> Set.copyOf(repository.findById(listId).orElseThrow().getEventIds()));
+    }
+
+    private static StubHttpServer startEventService() {
+        try {
+            return new StubHttpServer()
+                    .route("/events/public/byIds", req -> StubHttpServer.Response.json(Arrays.stream(
+                                    req.body().replaceAll("[\\[\\]\\s]", "").split(","))
+                            .filter(id -> !id.isEmpty() && Long.parseLong(id) < 1000)
+                            .map(id -> "{\"id\":" + id + ",\"name\":\"Evento " + id + "\",\"status\":\"ACTIVE\"}")
+                            .collect(Collectors.joining(",", "[", "]"))));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.dipartimento.favservice.service;
+
+import com.dipartimento.favservice.domain.FavoriteList;
+import com.dipartimento.favservice.repository.FavoriteListRepository;
+import com.dipartimento.favservice.support.StubHttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Più dispositivi che modificano la stessa lista in parallelo: con INSERT / DELETE atomiche
+// nessuna modifica va persa (con load-modify-save l'ultimo save sovrascriveva gli altri)
+@SpringBootTest
+class FavoriteListConcurrentWriteTest {
+
+    private static final long OWNER = 9_001L;
+    private static final int EVENTS_PER_WRITER = 100;
+
+    private static final StubHttpServer eventService = startEventService();
+
+    @Autowired
+    private FavoriteListService service;
+
+    @Autowired
+    private FavoriteListRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UUID listId;
+
+    @DynamicPropertySource
+    static void eventServiceUrl(DynamicPropertyRegistry registry) {
+        registry.add("services.event.base-url", eventService::baseUrl);
+    }
+
+    @AfterAll
+    static void stopEventService() {
+        eventService.close();
+    }
+
+    @BeforeEach
+    void createList() {
+        FavoriteList list = new FavoriteList();
+        list.setName("Lista condivisa tra dispositivi");
+        list.setOwnerId(OWNER);
+        list.setVisibility(FavoriteList.Visibility.PRIVATE);
+        listId = repository.save(list).getId();
+    }
+
+    @AfterEach
+    void deleteList() {
+        repository.deleteById(listId);
+    }
+
+    // Percorso completo di addEvent (INSERT, versione della lista, contatori, dashboard): nessuna aggiunta persa
+    // e una versione in più per ogni scrittura riuscita
+    @Test
+    void concurrentAddsAreNotLost() throws Exception {
+        AtomicInteger succeeded = new AtomicInteger();
+        writeConcurrently(8, eventId -> {
+            service.addEvent(listId, OWNER, eventId);
+            succeeded.incrementAndGet();
+        });
+
+        assertEquals(8 * EVENTS_PER_WRITER, succeeded.get());
+        assertEquals(succeeded.get(), eventCount());
+        assertEquals(succeeded.get(), jdbcTemplate.queryForObject(
+                "select version from favorite_lists where id = ?", Long.class, listId));
+    }
+
+    @Test
+    void concurrentAddsOfTheSameEventAreIdempotent() throws Exception {
+        writeConcurrently(8, eventId -> service.addEvent(listId, OWNER, eventId % EVENTS_PER_WRITER));
+
+        assertEquals(EVENTS_PER_WRITER, eventCount());
+    }
+
+    @Test
+    void concurrentRemovesAreNotLost() throws Exception {
+        writeConcurrently(8, eventId -> service.addEvent(listId, OWNER, eventId));
+        writeConcurrently(8, eventId -> {
+            if (eventId % 2 == 0) service.removeEvent(listId, OWNER, eventId);
+        });
+
+        assertEquals(4 * EVENTS_PER_WRITER, eventCount());
+    }
+
+    @Test
+    void onlyTheOwnerCanChangeTheList() {
+        assertThrows(RuntimeException.class, () -> service.addEvent(listId, OWNER + 1, 1L));
+        assertThrows(RuntimeException.class, () -> service.removeEvent(listId, OWNER + 1, 1L));
+        assertEquals(0, eventCount());
+    }
+
+    // Ogni writer scrive EVENTS_PER_WRITER id distinti
+    private void writeConcurrently(int writers, LongConsumer write) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                long first = (long) w * EVENTS_PER_WRITER;
+                futures.add(executor.submit(() -> {
+                    for (long eventId = first; eventId < first + EVENTS_PER_WRITER; eventId++) {
+                        write.accept(eventId);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private int eventCount() {
+        return jdbcTemplate.queryForObject(
+                "select count(*) from favorite_list_events where favorite_list_id = ?", Integer.class, listId);
+    }
+
+    private static StubHttpServer startEventService() {
+        try {
+            return new StubHttpServer()
+                    .route("/events/public/(\\d+)", req -> StubHttpServer.Response.json(
+                            "{\"id\":" + req.matcher().group(1) + ",\"name\":\"Evento\",\"location\":\"Roma\","
+                                    + "\"price\":10.0,\"capacity\":100,\"status\":\"ACTIVE\",\"organizerId\":1}"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
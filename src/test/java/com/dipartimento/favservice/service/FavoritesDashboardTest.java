@@ -0,0 +1,184 @@
+package com.dipartimento.favservice.service;
+
+import com.dipartimento.favservice.dto.FavoriteListRequest;
+import com.dipartimento.favservice.dto.FavoritesDashboard;
+import com.dipartimento.favservice.support.StubHttpServer;
+import com.dipartimento.favservice.util.JwtUtil;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Read model della schermata principale: aggiornato a ogni modifica di liste e condivisioni,
+// sempre uguale a una ricostruzione completa dalle tabelle
+@SpringBootTest
+@AutoConfigureMockMvc
+class FavoritesDashboardTest {
+
+    private static final long OWNER = 9_021L;
+    private static final long FRIEND = 9_022L;
+    private static final long OTHER_FRIEND = 9_023L;
+
+    private static final StubHttpServer userService = startUserService();
+    private static final StubHttpServer eventService = startEventService();
+
+    @Autowired
+    private FavoriteListService service;
+
+    @Autowired
+    private FavoritesDashboardService dashboardService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @DynamicPropertySource
+    static void serviceUrls(DynamicPropertyRegistry registry) {
+        registry.add("services.user.base-url", userService::baseUrl);
+        registry.add("services.event.base-url", eventService::baseUrl);
+    }
+
+    @AfterAll
+    static void stopServices() {
+        userService.close();
+        eventService.close();
+    }
+
+    @AfterEach
+    void deleteLists() {
+        jdbcTemplate.update("delete from favorite_lists where owner_id = ?", OWNER);
+        jdbcTemplate.update("delete from favorite_user_dashboards where user_id in (?, ?, ?)", OWNER, FRIEND, OTHER_FRIEND);
+    }
+
+    @Test
+    void listAndShareChangesUpdateOwnerAndRecipients() {
+        // documenti già costruiti: da qui in poi vengono solo aggiornati
+        dashboardService.getDashboard(OWNER);
+        dashboardService.getDashboard(FRIEND);
+        dashboardService.getDashboard(OTHER_FRIEND);
+
+        UUID listId = service.createList(OWNER, request("Concerti", "SHARED", List.of(FRIEND))).getId();
+        service.addEvent(listId, OWNER, 7L);
+        service.addEvent(listId, OWNER, 3L);
+
+        FavoritesDashboard friend = dashboardService.getDashboard(FRIEND);
+        assertEquals(1, friend.getSharedWithMe().size());
+        assertEquals(List.of(3L, 7L), friend.getSharedWithMe().get(0).getEventIds());
+        assertEquals("user" + OWNER, friend.getUserNames().get(OWNER));
+        assertEquals(List.of(listId), dashboardService.getDashboard(OWNER).getOwned().stream().map(FavoritesDashboard.ListEntry::getId).toList());
+        assertMatchesRebuild(OWNER, FRIEND, OTHER_FRIEND);
+
+        service.updateSharedWith(listId, OWNER, List.of(OTHER_FRIEND));
+        service.removeEvent(listId, OWNER, 7L);
+
+        FavoritesDashboard formerFriend = dashboardService.getDashboard(FRIEND);
+        assertTrue(formerFriend.getSharedWithMe().isEmpty());
+        // nessun nome di utenti che non compaiono più nelle liste
+        assertTrue(formerFriend.getUserNames().isEmpty());
+        FavoritesDashboard otherFriend = dashboardService.getDashboard(OTHER_FRIEND);
+        assertEquals(List.of(3L), otherFriend.getSharedWithMe().get(0).getEventIds());
+        assertEquals(OWNER, otherFriend.getSharedWithMe().get(0).getSharedByUserId());
+        assertMatchesRebuild(OWNER, FRIEND, OTHER_FRIEND);
+
+        assertNoStoredNames(OWNER, FRIEND, OTHER_FRIEND);
+
+        service.deleteList(listId, OWNER);
+
+        assertTrue(dashboardService.getDashboard(OWNER).getOwned().isEmpty());
+        assertTrue(dashboardService.getDashboard(OTHER_FRIEND).getSharedWithMe().isEmpty());
+        assertMatchesRebuild(OWNER, FRIEND, OTHER_FRIEND);
+    }
+
+    @Test
+    void dashboardIsServedWithETag() throws Exception {
+        service.createList(OWNER, request("Teatro", "PRIVATE", List.of()));
+        String bearer = "Bearer " + JwtUtil.generateToken(OWNER, "owner", "USER");
+
+        String etag = mockMvc.perform(get("/api/favorites/dashboard").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.owned[0].name").value("Teatro"))
+                .andExpect(jsonPath("$.userNames['" + OWNER + "']").value("user" + OWNER))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/favorites/dashboard").header(HttpHeaders.AUTHORIZATION, bearer)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    // I nomi sono risolti a ogni lettura, mai salvati nel documento
+    private void assertNoStoredNames(long... userIds) {
+        for (long userId : userIds) {
+            String content = jdbcTemplate.queryForObject("select content from favorite_user_dashboards where user_id = ?",
+                    String.class, userId);
+            assertFalse(content.contains("user" + OWNER), "nomi salvati nel documento di " + userId + ": " + content);
+        }
+    }
+
+    // Il documento aggiornato in modo incrementale coincide con quello ricostruito dalle tabelle
+    private void assertMatchesRebuild(long... userIds) {
+        for (long userId : userIds) {
+            FavoritesDashboard incremental = dashboardService.getDashboard(userId);
+            jdbcTemplate.update("update favorite_user_dashboards set content = null where user_id = ?", userId);
+            FavoritesDashboard rebuilt = dashboardService.getDashboard(userId);
+
+            assertEquals(summary(rebuilt.getOwned()), summary(incremental.getOwned()), "liste proprie di " + userId);
+            assertEquals(summary(rebuilt.getSharedWithMe()), summary(incremental.getSharedWithMe()), "condivise con " + userId);
+        }
+    }
+
+    private static List<String> summary(List<FavoritesDashboard.ListEntry> lists) {
+        return lists.stream()
+                .map(list -> list.getId() + " " + list.getName() + " " + list.getVersion() + " " + list.getEventIds() + " " + list.getSharedWith())
+                .toList();
+    }
+
+    private static FavoriteListRequest request(String name, String visibility, List<Long> sharedWith) {
+        FavoriteListRequest request = new FavoriteListRequest();
+        request.setName(name);
+        request.setVisibility(visibility);
+        request.setSharedWith(sharedWith);
+        return request;
+    }
+
+    private static StubHttpServer startUserService() {
+        try {
+            return new StubHttpServer()
+                    .route("/api/users/(\\d+)/exists", req -> StubHttpServer.Response.json("true"))
+                    .route("/api/users/(\\d+)/username", req -> StubHttpServer.Response.text("user" + req.matcher().group(1)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static StubHttpServer startEventService() {
+        try {
+            return new StubHttpServer()
+                    .route("/events/public/(\\d+)", req -> StubHttpServer.Response.json(
+                            "{\"id\":" + req.matcher().group(1) + ",\"name\":\"Evento\",\"location\":\"Roma\","
+                                    + "\"price\":10.0,\"capacity\":100,\"status\":\"ACTIVE\",\"organizerId\":1}"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.dipartimento.favservice.service;
+
+import com.dipartimento.favservice.config.EventClient;
+import com.dipartimento.favservice.domain.FavoriteList;
+import com.dipartimento.favservice.repository.FavoriteListRepository;
+import com.dipartimento.favservice.support.StubHttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class PublicListCacheTest {
+
+    private static final long OWNER = 9_004L;
+    private static final int CALLERS = 20;
+
+    private static final StubHttpServer eventService = startEventService();
+
+    @Autowired
+    private FavoriteListService service;
+
+    @Autowired
+    private FavoriteListRepository repository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EventClient eventClient;
+
+    private FavoriteList list;
+
+    @DynamicPropertySource
+    static void eventServiceUrl(DynamicPropertyRegistry registry) {
+        registry.add("services.event.base-url", eventService::baseUrl);
+    }
+
+    @AfterAll
+    static void stopEventService() {
+        eventService.close();
+    }
+
+    @BeforeEach
+    void createList() {
+        FavoriteList favoriteList = new FavoriteList();
+        favoriteList.setName("Lista virale");
+        favoriteList.setOwnerId(OWNER);
+        favoriteList.setVisibility(FavoriteList.Visibility.PUBLIC);
+        favoriteList.setCapabilityToken(UUID.randomUUID().toString());
+        favoriteList.setEventIds(List.of(1L, 2L, 3L));
+        list = repository.save(favoriteList);
+        eventClient.evictAll();
+        eventService.resetCount();
+    }
+
+    @AfterEach
+    void deleteList() {
+        service.deleteList(list.getId(), OWNER);
+    }
+
+    @Test
+    void thunderingHerdIsOneDatabaseReadAndOneEventServiceCall() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<byte[]> responses = concurrently(() ->
+                service.getPublicListWithEventsResponse(list.getCapabilityToken()).orElseThrow().json());
+
+        // lista + eventIds + sharedWith
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(1, eventService.requestCount());
+        responses.forEach(json -> assertArrayEquals(responses.get(0), json));
+    }
+
+    @Test
+    void mutationInvalidatesTheCachedResponses() {
+        String token = list.getCapabilityToken();
+        String before = json(service.getPublicListWithEventsResponse(token).orElseThrow().json());
+        String etagBefore = service.getPublicListResponse(token).orElseThrow().etag();
+        assertFalse(before.contains("Evento 4"));
+
+        service.addEvent(list.getId(), OWNER, 4L);
+
+        assertTrue(json(service.getPublicListWithEventsResponse(token).orElseThrow().json()).contains("Evento 4"));
+        assertNotEquals(etagBefore, service.getPublicListResponse(token).orElseThrow().etag());
+    }
+
+    @Test
+    void removalInvalidatesThePlainResponse() {
+        String token = list.getCapabilityToken();
+        assertTrue(json(service.getPublicListResponse(token).orElseThrow().json()).contains("\"eventIds\":[1,2,3]"));
+
+        service.removeEvent(list.getId(), OWNER, 1L);
+
+        assertTrue(json(service.getPublicListResponse(token).orElseThrow().json()).contains("\"eventIds\":[2,3]"));
+    }
+
+    // Scrittura che arriva mentre il primo caricamento del token è in corso (l'id della lista non è ancora noto):
+    // il chiamante riceve la risposta letta, ma la cache non la conserva
+    @Test
+    void writeDuringFirstLoadIsNotCached() throws Exception {
+        PublicListCache cache = new PublicListCache(100, Duration.ofMinutes(10), Duration.ofMinutes(1), new SimpleMeterRegistry());
+        UUID listId = UUID.randomUUID();
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch written = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<PublicListCache.CachedResponse> load = executor.submit(() -> cache.getList("token", t -> {
+                reading.countDown();
+                await(written);
+                return response(listId, "v1");
+            }).orElseThrow());
+
+            reading.await();
+            cache.invalidate(listId);
+            written.countDown();
+            assertEquals("v1", load.get().etag());
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals("v2", cache.getList("token", t -> response(listId, "v2")).orElseThrow().etag());
+        assertEquals("v2", cache.getList("token", t -> response(listId, "v3")).orElseThrow().etag());
+    }
+
+    // L'invalidazione non aspetta un caricamento in corso dello stesso token, che poi non resta in cache
+    @Test
+    void invalidationDoesNotWaitForLoadInProgress() throws Exception {
+        PublicListCache cache = new PublicListCache(100, Duration.ofMinutes(10), Duration.ofMinutes(1), new SimpleMeterRegistry());
+        UUID listId = UUID.randomUUID();
+        cache.getList("token", t -> response(listId, "v1"));
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch written = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<PublicListCache.CachedResponse> load = executor.submit(() -> cache.getListWithEvents("token", t -> {
+                reading.countDown();
+                await(written);
+                return response(listId, "v1");
+            }).orElseThrow());
+
+            reading.await();
+            assertTimeoutPreemptively(Duration.ofSeconds(1), () -> cache.invalidate(listId));
+            written.countDown();
+            assertEquals("v1", load.get().etag());
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals("v2", cache.getList("token", t -> response(listId, "v2")).orElseThrow().etag());
+        assertEquals("v2", cache.getListWithEvents("token", t -> response(listId, "v2")).orElseThrow().etag());
+    }
+
+    private static PublicListCache.CachedResponse response(UUID listId, String etag) {
+        return new PublicListCache.CachedResponse(listId, etag, etag.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static <T> List<T> concurrently(Callable<T> call) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                futures.add(executor.submit(call));
+            }
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static String json(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static StubHttpServer startEventService() {
+        try {
+            return new StubHttpServer()
+                    .route("/events/public/byIds", req -> StubHttpServer.Response.json(Arrays.stream(
+                                    req.body().replaceAll("[\\[\\]\\s]", "").split(","))
+                            .filter(id -> !id.isEmpty())
+                            .map(id -> "{\"id\":" + id + ",\"name\":\"Evento " + id + "\",\"status\":\"ACTIVE\"}")
+                            .collect(Collectors.joining(",", "[", "]"))))
+                    .route("/events/public/(\\d+)", req -> StubHttpServer.Response.json(
+                            "{\"id\":" + req.matcher().group(1) + ",\"name\":\"Evento " + req.matcher().group(1)
+                                    + "\",\"status\":\"ACTIVE\"}"))
+                    // le richieste concorrenti arrivano mentre la prima è ancora in corso
+                    .delay(200);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
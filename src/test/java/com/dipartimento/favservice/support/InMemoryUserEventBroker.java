@@ -0,0 +1,39 @@
+package com.dipartimento.favservice.support;
+
+import com.dipartimento.favservice.dto.UserRegisteredEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+// Broker in memoria al posto di quello reale: gli eventi pubblicati restano in coda
+// finché drain() non li consegna al consumer, al massimo batchSize per volta
+public final class InMemoryUserEventBroker {
+
+    private final BlockingQueue<UserRegisteredEvent> queue = new LinkedBlockingQueue<>();
+    private final int batchSize;
+    private final Consumer<List<UserRegisteredEvent>> consumer;
+
+    public InMemoryUserEventBroker(int batchSize, Consumer<List<UserRegisteredEvent>> consumer) {
+        this.batchSize = batchSize;
+        this.consumer = consumer;
+    }
+
+    public void publish(UserRegisteredEvent event) {
+        queue.add(event);
+    }
+
+    // Restituisce il numero di batch consegnati
+    public int drain() {
+        int batches = 0;
+        List<UserRegisteredEvent> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            consumer.accept(List.copyOf(batch));
+            batch.clear();
+            batches++;
+        }
+        return batches;
+    }
+}
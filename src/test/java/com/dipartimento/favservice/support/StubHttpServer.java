@@ -0,0 +1,120 @@
+package com.dipartimento.favservice.support;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Piccolo server HTTP locale usato come stub di userService / eventService nei test.
+ * Ogni rotta è una regex sul path; la latenza simulata è configurabile a runtime.
+ */
+public class StubHttpServer implements AutoCloseable {
+
+    public record Response(int status, String contentType, String body) {
+        public static Response json(String body) {
+            return new Response(200, "application/json", body);
+        }
+
+        public static Response text(String body) {
+            return new Response(200, "text/plain", body);
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Map<Pattern, Function<Request, Response>> routes = new ConcurrentHashMap<>();
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private volatile long delayMillis;
+
+    public record Request(String method, String path, Matcher matcher, String body, Map<String, String> headers) {
+
+        // nomi degli header in minuscolo
+        public String header(String name) {
+            return headers.get(name.toLowerCase());
+        }
+    }
+
+    public StubHttpServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public StubHttpServer route(String pathRegex, Function<Request, Response> handler) {
+        routes.put(Pattern.compile(pathRegex), handler);
+        return this;
+    }
+
+    public StubHttpServer delay(long millis) {
+        this.delayMillis = millis;
+        return this;
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public int requestCount() {
+        return requestCount.get();
+    }
+
+    public void resetCount() {
+        requestCount.set(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        String path = exchange.getRequestURI().getPath();
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+
+        Response response = new Response(404, "text/plain", "not found");
+        for (Map.Entry<Pattern, Function<Request, Response>> route : routes.entrySet()) {
+            Matcher matcher = route.getKey().matcher(path);
+            if (matcher.matches()) {
+                response = route.getValue().apply(new Request(exchange.getRequestMethod(), path, matcher, body, headers(exchange)));
+                break;
+            }
+        }
+
+        if (delayMillis > 0) {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        byte[] bytes = response.body().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", response.contentType());
+        exchange.sendResponseHeaders(response.status(), bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> headers(HttpExchange exchange) {
+        Map<String, String> headers = new HashMap<>();
+        exchange.getRequestHeaders().forEach((name, values) -> headers.put(name.toLowerCase(), values.get(0)));
+        return headers;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,75 @@
+package com.dipartimento.favservice.util;
+
+import com.dipartimento.favservice.security.JwtPrincipal;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Cache dei token già verificati: non deve mai far passare un token che la verifica completa rifiuterebbe
+class JwtUtilTest {
+
+    private final JwtUtil jwtUtil = new JwtUtil(100, Duration.ofMinutes(5));
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void tamperedSignatureIsRejectedAfterValidTokenIsCached() {
+        String token = JwtUtil.generateToken(42L, "user", "USER");
+        assertEquals(42L, jwtUtil.parse(token).userId());
+
+        String[] parts = token.split("\\.");
+        char[] signature = parts[2].toCharArray();
+        signature[10] = signature[10] == 'A' ? 'B' : 'A';
+        String tampered = parts[0] + "." + parts[1] + "." + new String(signature);
+
+        assertThrows(SignatureException.class, () -> jwtUtil.parse(tampered));
+        assertNull(jwtUtil.authenticate("Bearer " + tampered));
+        assertFalse(JwtUtil.validateToken(tampered));
+        // il token originale resta valido
+        assertEquals(42L, jwtUtil.parse("Bearer " + token).userId());
+    }
+
+    @Test
+    void expiredTokenIsNotServedFromCache() throws Exception {
+        String token = JwtUtil.generateToken(42L, "user", "USER", Duration.ofSeconds(2));
+        JwtPrincipal principal = jwtUtil.parse(token);
+        assertEquals(42L, jwtUtil.parse(token).userId());
+
+        // exp ha la precisione del secondo: attendo che sia passato
+        Thread.sleep(Math.max(0, Duration.between(Instant.now(), principal.expiresAt()).toMillis()) + 200);
+
+        assertThrows(ExpiredJwtException.class, () -> jwtUtil.parse(token));
+        assertNull(jwtUtil.authenticate(token));
+    }
+
+    @Test
+    void extractUserIdPrefersAuthenticatedPrincipal() {
+        String token = "Bearer " + JwtUtil.generateToken(42L, "user", "USER");
+        assertEquals(42L, JwtUtil.extractUserId(token));
+
+        JwtPrincipal principal = new JwtPrincipal(7L, "other", "USER", null);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, List.of()));
+        assertEquals(7L, JwtUtil.extractUserId(token));
+
+        // principal di altro tipo (es. utente in memoria): si legge il token
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("admin", null, List.of()));
+        assertEquals(42L, JwtUtil.extractUserId(token));
+    }
+}